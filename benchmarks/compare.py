@@ -0,0 +1,67 @@
+#!/usr/bin/env python3
+"""比较两次JMH运行的JSON结果，输出每个基准的变化，存在超过阈值的退化时返回非0
+
+用法: benchmarks/compare.py <基线结果> <对比结果> [--threshold 5]
+"""
+import argparse
+import json
+import sys
+
+# 平均时间类模式分数越低越好，吞吐量模式越高越好
+LOWER_IS_BETTER = {"avgt", "sample", "ss"}
+
+
+def to_error(value):
+    # 只有一次迭代时JMH输出的误差为"NaN"
+    try:
+        error = float(value)
+    except (TypeError, ValueError):
+        return 0.0
+    return 0.0 if error != error else error
+
+
+def load(path):
+    with open(path, encoding="utf-8") as f:
+        results = {}
+        for item in json.load(f):
+            params = ",".join("%s=%s" % (k, v) for k, v in sorted(item.get("params", {}).items()))
+            key = "%s[%s] t=%s" % (item["benchmark"], params, item["threads"])
+            metric = item["primaryMetric"]
+            results[key] = (item["mode"], metric["score"], to_error(metric.get("scoreError")), metric["scoreUnit"])
+        return results
+
+
+def main():
+    parser = argparse.ArgumentParser(description="Compare two JMH JSON results")
+    parser.add_argument("baseline")
+    parser.add_argument("candidate")
+    parser.add_argument("--threshold", type=float, default=5.0,
+                        help="regression threshold in percent, default 5")
+    args = parser.parse_args()
+
+    baseline = load(args.baseline)
+    candidate = load(args.candidate)
+    regressions = 0
+    for key in sorted(set(baseline) | set(candidate)):
+        if key not in baseline or key not in candidate:
+            print("%-100s %s" % (key, "only in " + ("candidate" if key in candidate else "baseline")))
+            continue
+        mode, base_score, base_error, unit = baseline[key]
+        _, new_score, new_error, _ = candidate[key]
+        change = (new_score - base_score) / base_score * 100 if base_score else 0.0
+        worse = -change if mode not in LOWER_IS_BETTER else change
+        # 两次结果的误差区间重叠时不认为是退化
+        overlapped = abs(new_score - base_score) <= base_error + new_error
+        flag = ""
+        if worse > args.threshold and not overlapped:
+            flag = "REGRESSION"
+            regressions += 1
+        elif -worse > args.threshold and not overlapped:
+            flag = "improved"
+        print("%-100s %12.3f -> %12.3f %-10s %+7.2f%% %s" % (key, base_score, new_score, unit, change, flag))
+    print("%d regression(s) beyond %.1f%%" % (regressions, args.threshold))
+    return 1 if regressions else 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
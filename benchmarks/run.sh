@@ -0,0 +1,16 @@
+#!/usr/bin/env bash
+# 构建并运行基准测试，结果以JSON格式输出
+# 用法: benchmarks/run.sh <结果文件> [JMH参数...]
+# 例如: benchmarks/run.sh benchmarks/results/baseline.json ConcurrentLRUCacheBenchmark -p readRatio=0.9
+set -euo pipefail
+
+BENCH_DIR="$(cd "$(dirname "$0")" && pwd)"
+ROOT_DIR="$(dirname "$BENCH_DIR")"
+RESULT_FILE="${1:-$BENCH_DIR/results/result-$(date +%Y%m%d-%H%M%S).json}"
+shift || true
+
+mkdir -p "$(dirname "$RESULT_FILE")"
+mvn -B -q -f "$ROOT_DIR/pom.xml" install -DskipTests
+mvn -B -q -f "$BENCH_DIR/pom.xml" package
+java -jar "$BENCH_DIR/target/benchmarks.jar" -rf json -rff "$RESULT_FILE" "$@"
+echo "Result written to $RESULT_FILE"
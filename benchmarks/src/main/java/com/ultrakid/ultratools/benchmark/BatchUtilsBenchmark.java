@@ -0,0 +1,96 @@
+package com.ultrakid.ultratools.benchmark;
+
+import com.ultrakid.ultratools.batch.BatchUtils;
+import com.ultrakid.ultratools.batch.operator.BatchOperator;
+import com.ultrakid.ultratools.batch.operator.ListBatchOperator;
+import com.ultrakid.ultratools.batch.operator.MapBatchOperator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 串行与并发批量操作的基准测试，覆盖ListBatchOperator和MapBatchOperator
+ *
+ * @author ultrakid
+ * @version 1.0
+ * @date 2022/03/08 15:42
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchUtilsBenchmark {
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    @Param({"100", "1000"})
+    public int batchSize;
+
+    @Param({"list", "map"})
+    public String operatorType;
+
+    private BatchOperator<?> operator;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if ("list".equals(operatorType)) {
+            List<Integer> dataList = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                dataList.add(i);
+            }
+            operator = new ListBatchOperator<Integer>(dataList) {
+                @Override
+                public int operate(List<Integer> data) {
+                    int hash = 0;
+                    for (Integer num : data) {
+                        hash = hash * 31 + num;
+                    }
+                    return hash == 1 ? 0 : data.size();
+                }
+            };
+        } else {
+            Map<Integer, Integer> dataMap = new HashMap<>(size * 2);
+            for (int i = 0; i < size; i++) {
+                dataMap.put(i, i);
+            }
+            operator = new MapBatchOperator<Integer, Integer>(dataMap) {
+                @Override
+                public int operate(Map<Integer, Integer> data) {
+                    int hash = 0;
+                    for (Integer num : data.values()) {
+                        hash = hash * 31 + num;
+                    }
+                    return hash == 1 ? 0 : data.size();
+                }
+            };
+        }
+    }
+
+    @Benchmark
+    public long batchOperate() {
+        return BatchUtils.batchOperate(operator, batchSize);
+    }
+
+    @Benchmark
+    public long batchParallelOperate() throws InterruptedException {
+        return BatchUtils.batchParallelOperate(operator, batchSize);
+    }
+}
@@ -0,0 +1,145 @@
+package com.ultrakid.ultratools.benchmark;
+
+import com.ultrakid.ultratools.cache.ConcurrentLRUCache;
+import com.ultrakid.ultratools.data.WeightedPicker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * LRU缓存读写混合的基准测试，key服从Zipf分布，分别在1到32个线程下测试
+ *
+ * @author ultrakid
+ * @version 1.0
+ * @date 2022/03/08 14:20
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentLRUCacheBenchmark {
+
+    private static final int KEY_SPACE = 100_000;
+
+    private static final int KEY_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * 读操作的比例，其余为写操作
+     */
+    @Param({"0.5", "0.9"})
+    public double readRatio;
+
+    /**
+     * 缓存最大大小，小于key空间时会触发淘汰
+     */
+    @Param({"10000"})
+    public int maxSize;
+
+    private ConcurrentLRUCache<Integer, Integer> cache;
+
+    private WeightedPicker<Integer> keyPicker;
+
+    /**
+     * 为每个线程分配固定的随机数种子，保证多次运行的操作序列相同
+     */
+    private AtomicInteger threadIndex;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        threadIndex = new AtomicInteger(0);
+        cache = new ConcurrentLRUCache<>(maxSize, maxSize);
+        keyPicker = WeightedPicker.zipf(KEY_SPACE, 1D);
+        SplittableRandom random = new SplittableRandom(1L);
+        for (int i = 0; i < maxSize; i++) {
+            cache.put(keyPicker.pickIndex(random), i);
+        }
+    }
+
+    /**
+     * 每个线程预先生成的操作序列，避免测量随机数生成和装箱
+     */
+    @State(Scope.Thread)
+    public static class ThreadOps {
+        private Integer[] keys;
+        private boolean[] reads;
+        private int cursor = 0;
+
+        @Setup(Level.Trial)
+        public void setup(ConcurrentLRUCacheBenchmark benchmark) {
+            SplittableRandom random = new SplittableRandom(1000L + benchmark.threadIndex.getAndIncrement());
+            keys = new Integer[KEY_BUFFER_SIZE];
+            reads = new boolean[KEY_BUFFER_SIZE];
+            for (int i = 0; i < KEY_BUFFER_SIZE; i++) {
+                keys[i] = benchmark.keyPicker.pickIndex(random);
+                reads[i] = random.nextDouble() < benchmark.readRatio;
+            }
+        }
+
+        int next() {
+            int index = cursor;
+            cursor = (index + 1) & (KEY_BUFFER_SIZE - 1);
+            return index;
+        }
+    }
+
+    private Integer operate(ThreadOps ops) {
+        int index = ops.next();
+        Integer key = ops.keys[index];
+        if (ops.reads[index]) {
+            return cache.get(key);
+        }
+        return cache.put(key, key);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Integer mixedThreads01(ThreadOps ops) {
+        return operate(ops);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public Integer mixedThreads02(ThreadOps ops) {
+        return operate(ops);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Integer mixedThreads04(ThreadOps ops) {
+        return operate(ops);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Integer mixedThreads08(ThreadOps ops) {
+        return operate(ops);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public Integer mixedThreads16(ThreadOps ops) {
+        return operate(ops);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public Integer mixedThreads32(ThreadOps ops) {
+        return operate(ops);
+    }
+}
@@ -0,0 +1,70 @@
+package com.ultrakid.ultratools.benchmark;
+
+import cn.hutool.core.util.RandomUtil;
+import com.ultrakid.ultratools.data.RandomUtils;
+import com.ultrakid.ultratools.data.WeightedPicker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 随机数据生成的基准测试
+ *
+ * @author ultrakid
+ * @version 1.0
+ * @date 2022/03/08 16:35
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RandomUtilsBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int num;
+
+    private WeightedPicker<Integer> zipfPicker;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        zipfPicker = WeightedPicker.zipf(10_000, 1D);
+    }
+
+    @Benchmark
+    public List<Integer> generateList() {
+        return RandomUtils.generateList(num, () -> RandomUtil.randomInt(1000));
+    }
+
+    @Benchmark
+    public List<Integer> generateListParallel() {
+        return RandomUtils.generateList(num, 42L, random -> random.nextInt(1000));
+    }
+
+    @Benchmark
+    public int[] randomInts() {
+        return RandomUtils.randomInts(num, 42L, 0, 1000);
+    }
+
+    @Benchmark
+    public long zipfPick() {
+        long sum = 0L;
+        for (int i = 0; i < num; i++) {
+            sum += zipfPicker.pickIndex();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,338 @@
+package com.ultrakid.ultratools.batch;
+
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import com.ultrakid.ultratools.common.InstrumentedExecutor;
+import com.ultrakid.ultratools.common.InstrumentedThreadFactory;
+import com.ultrakid.ultratools.common.PoolStats;
+import com.ultrakid.ultratools.common.VirtualThreads;
+
+import java.io.Closeable;
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量操作线程池注册中心
+ * 按名称管理有界线程池，线程池在第一次使用时才创建，线程数默认根据CPU核数计算，线程均为守护线程，
+ * 同时支持为每个租户创建舱壁，限制租户在共享线程池中的并发数
+ * 线程池均为{@link InstrumentedExecutor}，可以获取任务排队和执行耗时、CPU时间等统计
+ *
+ * @author ultrakid
+ * @version 1.0
+ * @date 2022/01/18 15:12
+ */
+public class BatchExecutorRegistry implements Closeable {
+
+    private static final Log LOGGER = LogFactory.get(BatchExecutorRegistry.class);
+
+    /**
+     * 默认线程池，BatchUtils未指定线程池时使用
+     * 批量操作大多在等待JDBC、HTTP等IO，因此默认使用IO密集型配置{@link PoolConfig#ioBound()}，
+     * 线程数不少于原来BatchUtils内置线程池的24个线程；CPU密集型任务请注册{@link PoolConfig#cpuBound()}的线程池
+     */
+    public static final String DEFAULT_POOL = "default";
+
+    /**
+     * IO密集型线程池
+     */
+    public static final String IO_POOL = "io";
+
+    private static final long DEFAULT_SHUTDOWN_SECONDS = 30L;
+
+    /**
+     * IO密集型线程池的最少线程数，与原来BatchUtils内置线程池的线程数相同
+     */
+    private static final int MIN_IO_THREADS = 24;
+
+    private final Map<String, PoolConfig> configMap = new ConcurrentHashMap<>();
+    private final Map<String, InstrumentedExecutor> executorMap = new ConcurrentHashMap<>();
+    private final Map<String, Bulkhead> bulkheadMap = new ConcurrentHashMap<>();
+    private volatile ExecutorService virtualExecutor = null;
+    private volatile boolean shutdown = false;
+
+    public BatchExecutorRegistry() {
+        configMap.put(DEFAULT_POOL, PoolConfig.ioBound());
+        configMap.put(IO_POOL, PoolConfig.ioBound());
+    }
+
+    /**
+     * 获取全局默认的注册中心，JVM退出时会优雅关闭其中的线程池
+     *
+     * @return 默认注册中心
+     */
+    public static BatchExecutorRegistry getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    /**
+     * 注册线程池配置，同名线程池已经创建时不能再修改
+     *
+     * @param poolName 线程池名称
+     * @param config   线程池配置
+     */
+    public void register(String poolName, PoolConfig config) {
+        if (executorMap.containsKey(poolName)) {
+            throw new IllegalStateException("Executor " + poolName + " has already been created");
+        }
+        configMap.put(poolName, config);
+    }
+
+    /**
+     * 获取线程池，不存在时按注册的配置创建
+     *
+     * @param poolName 线程池名称
+     * @return 线程池
+     */
+    public InstrumentedExecutor getExecutor(String poolName) {
+        return getThreadPool(poolName);
+    }
+
+    /**
+     * 获取虚拟线程池，每个任务使用一个新的虚拟线程，适合IO密集型任务，并发量需要由调用方控制
+     * 不支持虚拟线程或者创建失败时，返回{@link #IO_POOL}线程池
+     *
+     * @return 虚拟线程池
+     */
+    public ExecutorService getVirtualExecutor() {
+        if (!VirtualThreads.isSupported()) {
+            return getExecutor(IO_POOL);
+        }
+        ExecutorService executor = virtualExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                if (shutdown) {
+                    throw new RejectedExecutionException("BatchExecutorRegistry has been shut down");
+                }
+                if (virtualExecutor == null) {
+                    virtualExecutor = VirtualThreads.newThreadPerTaskExecutor("BatchUtils-virtual-");
+                }
+                executor = virtualExecutor;
+            }
+        }
+        return executor == null ? getExecutor(IO_POOL) : executor;
+    }
+
+    /**
+     * 获取租户在线程池中的舱壁，同一线程池的同一租户只会创建一次
+     *
+     * @param poolName      线程池名称
+     * @param tenant        租户
+     * @param maxConcurrent 租户的最大并发数，只在第一次创建时生效
+     * @return 舱壁
+     */
+    public Bulkhead getBulkhead(String poolName, String tenant, int maxConcurrent) {
+        InstrumentedExecutor executor = getThreadPool(poolName);
+        return bulkheadMap.computeIfAbsent(poolName + "/" + tenant,
+                name -> new Bulkhead(name, executor, maxConcurrent));
+    }
+
+    /**
+     * 获取线程池状态，线程池未创建时返回null
+     *
+     * @param poolName 线程池名称
+     * @return 状态快照
+     */
+    public PoolStats getStats(String poolName) {
+        InstrumentedExecutor executor = executorMap.get(poolName);
+        return executor == null ? null : executor.getStats();
+    }
+
+    /**
+     * 获取所有已创建线程池的状态
+     *
+     * @return 状态快照列表
+     */
+    public List<PoolStats> getAllStats() {
+        List<PoolStats> statsList = new ArrayList<>(executorMap.size());
+        executorMap.values().forEach(executor -> statsList.add(executor.getStats()));
+        return statsList;
+    }
+
+    /**
+     * 优雅关闭所有线程池，等待已提交的任务执行完成，超时后强制关闭
+     *
+     * @param timeout 超时时间
+     * @param unit    时间单位
+     * @return 是否在超时前全部关闭
+     * @throws InterruptedException 等待时被打断
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        synchronized (this) {
+            shutdown = true;
+        }
+        bulkheadMap.values().forEach(Bulkhead::shutdown);
+        executorMap.values().forEach(ThreadPoolExecutor::shutdown);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        boolean terminated = true;
+        if (virtualExecutor != null) {
+            virtualExecutor.shutdown();
+            if (!virtualExecutor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                virtualExecutor.shutdownNow();
+                LOGGER.warn("Virtual executor did not terminate in time");
+                terminated = false;
+            }
+        }
+        for (Map.Entry<String, InstrumentedExecutor> entry : executorMap.entrySet()) {
+            long remainNanos = deadline - System.nanoTime();
+            if (!entry.getValue().awaitTermination(remainNanos, TimeUnit.NANOSECONDS)) {
+                List<Runnable> droppedList = entry.getValue().shutdownNow();
+                LOGGER.warn("Executor {} did not terminate in time, {} queued tasks dropped",
+                        entry.getKey(), droppedList.size());
+                terminated = false;
+            }
+        }
+        return terminated;
+    }
+
+    @Override
+    public void close() {
+        try {
+            shutdown(DEFAULT_SHUTDOWN_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private InstrumentedExecutor getThreadPool(String poolName) {
+        InstrumentedExecutor executor = executorMap.get(poolName);
+        if (executor != null) {
+            return executor;
+        }
+        synchronized (this) {
+            if (shutdown) {
+                throw new RejectedExecutionException("BatchExecutorRegistry has been shut down");
+            }
+            return executorMap.computeIfAbsent(poolName, name -> {
+                PoolConfig config = configMap.get(name);
+                if (config == null) {
+                    throw new InvalidParameterException("Executor " + name + " is not registered");
+                }
+                return config.create(name);
+            });
+        }
+    }
+
+    /**
+     * 线程池满时的拒绝策略
+     * 批量操作会等待所有批次完成，因此不提供丢弃任务的策略，否则会一直等待被丢弃的批次
+     */
+    public enum RejectPolicy {
+        /**
+         * 抛出RejectedExecutionException，BatchUtils将被拒绝的批次按失败处理，仍会等待已提交的批次完成
+         */
+        ABORT,
+        /**
+         * 由提交任务的线程执行
+         */
+        CALLER_RUNS,
+        /**
+         * 提交任务的线程阻塞等待队列有空位
+         */
+        BLOCK;
+
+        RejectedExecutionHandler toHandler() {
+            switch (this) {
+                case ABORT:
+                    return new ThreadPoolExecutor.AbortPolicy();
+                case CALLER_RUNS:
+                    return new ThreadPoolExecutor.CallerRunsPolicy();
+                default:
+                    return (r, executor) -> {
+                        if (executor.isShutdown()) {
+                            throw new RejectedExecutionException("Executor has been shut down");
+                        }
+                        try {
+                            executor.getQueue().put(r);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new RejectedExecutionException("Interrupted while waiting for queue", e);
+                        }
+                    };
+            }
+        }
+    }
+
+    /**
+     * 线程池配置
+     */
+    public static class PoolConfig {
+        private final int threads;
+        private final int queueCapacity;
+        private final RejectPolicy rejectPolicy;
+
+        /**
+         * 构造方法
+         *
+         * @param threads       线程数
+         * @param queueCapacity 等待队列容量
+         * @param rejectPolicy  线程和队列都满时的拒绝策略
+         */
+        public PoolConfig(int threads, int queueCapacity, RejectPolicy rejectPolicy) {
+            if (threads <= 0 || queueCapacity <= 0) {
+                throw new InvalidParameterException("Threads and queue capacity should be greater than 0, " +
+                        "but actual value is " + threads + " and " + queueCapacity);
+            }
+            this.threads = threads;
+            this.queueCapacity = queueCapacity;
+            this.rejectPolicy = rejectPolicy;
+        }
+
+        /**
+         * CPU密集型配置，线程数等于CPU核数
+         *
+         * @return 线程池配置
+         */
+        public static PoolConfig cpuBound() {
+            return new PoolConfig(Runtime.getRuntime().availableProcessors(), 1024, RejectPolicy.CALLER_RUNS);
+        }
+
+        /**
+         * IO密集型配置，线程数为CPU核数的8倍，且不少于24
+         *
+         * @return 线程池配置
+         */
+        public static PoolConfig ioBound() {
+            int threads = Math.max(Runtime.getRuntime().availableProcessors() * 8, MIN_IO_THREADS);
+            return new PoolConfig(threads, 4096, RejectPolicy.CALLER_RUNS);
+        }
+
+        InstrumentedExecutor create(String poolName) {
+            InstrumentedExecutor executor = new InstrumentedExecutor(poolName, threads, threads, 60L,
+                    TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                    new InstrumentedThreadFactory(poolName, true, Thread.NORM_PRIORITY,
+                            InstrumentedThreadFactory.LOGGING_HANDLER),
+                    rejectPolicy.toHandler());
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public RejectPolicy getRejectPolicy() {
+            return rejectPolicy;
+        }
+    }
+
+    private static class DefaultHolder {
+        private static final BatchExecutorRegistry INSTANCE = new BatchExecutorRegistry();
+
+        static {
+            Runtime.getRuntime().addShutdownHook(new Thread(INSTANCE::close, "BatchExecutorRegistry-shutdown"));
+        }
+    }
+}
@@ -3,8 +3,9 @@ package com.ultrakid.ultratools.batch;
 
 import cn.hutool.log.Log;
 import cn.hutool.log.LogFactory;
+import com.ultrakid.ultratools.batch.checkpoint.CheckpointStore;
+import com.ultrakid.ultratools.batch.metrics.BatchMetrics;
 import com.ultrakid.ultratools.batch.operator.BatchOperator;
-import com.ultrakid.ultratools.common.DefaultThreadFactory;
 import com.ultrakid.ultratools.exception.UltraRuntimeException;
 
 import java.security.InvalidParameterException;
@@ -12,8 +13,10 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
 
 /**
  * 批量操作工具类
@@ -26,11 +29,16 @@ public final class BatchUtils {
 
     private static final Log LOGGER = LogFactory.get(BatchUtils.class);
 
-    private static final int ALLOWED_MAX_THREADS = 24;
+    private static volatile BatchMetrics batchMetrics = BatchMetrics.NOOP;
 
-    private static DefaultThreadFactory threadFactory = new DefaultThreadFactory("BatchUtils");
-
-    private static ExecutorService executorService = Executors.newFixedThreadPool(ALLOWED_MAX_THREADS, threadFactory);
+    /**
+     * 设置全局的监控统计，所有批量操作都会上报，默认不统计
+     *
+     * @param metrics 监控统计，为null时关闭统计
+     */
+    public static void setBatchMetrics(BatchMetrics metrics) {
+        batchMetrics = metrics == null ? BatchMetrics.NOOP : metrics;
+    }
 
     /**
      * 批量操作
@@ -49,27 +57,70 @@ public final class BatchUtils {
             //如果原始数据为空就不再执行
             return 0L;
         }
-        if (size <= batchSize) {
-            return operator.operate(data);
+        BatchMetrics.JobRecorder recorder = batchMetrics.startJob(operator.jobName(), (size - 1) / batchSize + 1);
+        try {
+            if (size <= batchSize) {
+                return operateBatch(operator, data, size, recorder);
+            }
+            int res = 0;
+            int stopIndex = size - batchSize;
+            int index = 0;
+            for (; index < stopIndex; index += batchSize) {
+                T smallData = operator.toSmallBatch(index, batchSize);
+                res += operateBatch(operator, smallData, batchSize, recorder);
+            }
+            int restSize = size - index;
+            if (restSize == 0) {
+                return res;
+            }
+            T restData = operator.toSmallBatch(index, restSize);
+            res += operateBatch(operator, restData, restSize, recorder);
+            return res;
+        } finally {
+            recorder.onFinish(System.nanoTime());
         }
-        int res = 0;
-        int stopIndex = size - batchSize;
-        int index = 0;
-        for (; index < stopIndex; index += batchSize) {
-            T smallData = operator.toSmallBatch(index, batchSize);
-            res += operator.operate(smallData);
+    }
+
+    /**
+     * 带检查点的批量操作，每完成一批就记录到检查点存储，
+     * 任务中断后使用相同的jobId、相同的原始数据和batchSize重新执行时会跳过已完成的批次
+     *
+     * @param operator        批量操作算符
+     * @param batchSize       单批次大小
+     * @param checkpointStore 检查点存储
+     * @param jobId           任务id
+     * @return 本次执行的操作成功数，跳过的批次不计入
+     */
+    public static <T> long batchOperate(BatchOperator<T> operator, int batchSize,
+                                        CheckpointStore checkpointStore, String jobId) {
+        if (batchSize <= 0) {
+            throw new InvalidParameterException("Batch size should be greater than 0, but actual value is " + batchSize);
         }
-        int restSize = size - index;
-        if (restSize == 0) {
-            return res;
+        T data = operator.oriData();
+        int size = operator.calcSize(data);
+        List<BatchRange> rangeList = new ArrayList<>(size / batchSize + 1);
+        for (BatchRange range : splitBySize(size, batchSize)) {
+            if (!checkpointStore.isCompleted(jobId, range.start, range.size)) {
+                rangeList.add(range);
+            }
+        }
+        // 只统计本次实际执行的批次，已完成的批次不计入
+        BatchMetrics.JobRecorder recorder = batchMetrics.startJob(operator.jobName(), rangeList.size());
+        long res = 0L;
+        try {
+            for (BatchRange range : rangeList) {
+                res += operateBatch(operator, operator.toSmallBatch(range.start, range.size), range.size, recorder);
+                checkpointStore.markCompleted(jobId, range.start, range.size);
+            }
+        } finally {
+            recorder.onFinish(System.nanoTime());
         }
-        T restData = operator.toSmallBatch(index, restSize);
-        res += operator.operate(restData);
         return res;
     }
 
     /**
-     * 使用内置线程池进行并发批量操作
+     * 使用内置线程池进行并发批量操作，内置线程池为{@link BatchExecutorRegistry}的默认线程池，
+     * 按IO密集型配置，线程数为CPU核数的8倍且不少于24
      *
      * @param operator  批量操作算符
      * @param batchSize 单批次大小
@@ -78,7 +129,7 @@ public final class BatchUtils {
      */
     public static <T> long batchParallelOperate(BatchOperator<T> operator, int batchSize)
             throws InterruptedException {
-        return batchParallelOperate(operator, batchSize, executorService, true);
+        return batchParallelOperate(operator, batchSize, defaultExecutor(), true);
     }
 
     /**
@@ -101,7 +152,12 @@ public final class BatchUtils {
         int size = operator.calcSize(data);
         if (size <= batchSize) {
             // 数据量较小时直接进行操作
-            return operator.operate(data);
+            BatchMetrics.JobRecorder recorder = batchMetrics.startJob(operator.jobName(), 1);
+            try {
+                return operateBatch(operator, data, size, recorder);
+            } finally {
+                recorder.onFinish(System.nanoTime());
+            }
         }
         int stopIndex = size - batchSize;
         int index = 0;
@@ -109,30 +165,298 @@ public final class BatchUtils {
         // 提前分批
         for (; index < stopIndex; index += batchSize) {
             T smallData = operator.toSmallBatch(index, batchSize);
-            StatusJob<T> statusJob = new StatusJob<>(smallData);
+            StatusJob<T> statusJob = new StatusJob<>(smallData, batchSize);
             jobList.add(statusJob);
         }
         int restSize = size - index;
         if (restSize > 0) {
             T restData = operator.toSmallBatch(index, restSize);
-            StatusJob<T> statusJob = new StatusJob<>(restData);
+            StatusJob<T> statusJob = new StatusJob<>(restData, restSize);
+            jobList.add(statusJob);
+        }
+        return executeJobs(operator.jobName(), jobList.size(), jobList,
+                (job, recorder) -> job.successCnt = operateBatch(operator, job.data, job.rows, job.enqueueNanos,
+                        recorder),
+                executorService, ignoreException, null);
+    }
+
+    /**
+     * 使用虚拟线程的并发批量操作，适合operate主要在等待JDBC、HTTP等IO的场景，
+     * 并发量不受线程数限制，由maxConcurrency控制同时执行的批次数，达到上限时提交线程阻塞等待
+     * JDK 21以下不支持虚拟线程，退化为使用{@link BatchExecutorRegistry#IO_POOL}线程池
+     *
+     * @param operator        批量操作算符
+     * @param batchSize       单批次大小
+     * @param maxConcurrency  同时执行的最大批次数
+     * @param ignoreException 线程内有异常时是否抛出,false时抛出
+     * @param <T>             数据类型
+     * @return 操作成功数
+     */
+    public static <T> long batchVirtualOperate(BatchOperator<T> operator, int batchSize, int maxConcurrency,
+                                               boolean ignoreException) throws InterruptedException {
+        if (batchSize <= 0) {
+            throw new InvalidParameterException("Batch size should be greater than 0, but actual value is " + batchSize);
+        }
+        if (maxConcurrency <= 0) {
+            throw new InvalidParameterException("Max concurrency should be greater than 0, but actual value is "
+                    + maxConcurrency);
+        }
+        T data = operator.oriData();
+        int size = operator.calcSize(data);
+        List<BatchRange> rangeList = splitBySize(size, batchSize);
+        List<StatusJob<T>> jobList = new ArrayList<>(rangeList.size());
+        for (BatchRange range : rangeList) {
+            StatusJob<T> statusJob = new StatusJob<>(operator.toSmallBatch(range.start, range.size),
+                    range.size);
+            // 每个批次权重为1，总权重上限即为并发上限
+            statusJob.weight = 1L;
+            jobList.add(statusJob);
+        }
+        return executeJobs(operator.jobName(), jobList.size(), jobList,
+                (job, recorder) -> job.successCnt = operateBatch(operator, job.data, job.rows, job.enqueueNanos,
+                        recorder),
+                BatchExecutorRegistry.getDefault().getVirtualExecutor(), ignoreException,
+                new WeightLimiter(maxConcurrency));
+    }
+
+    /**
+     * 带检查点的并发批量操作，批次完成的顺序不确定，检查点按批次范围逐个记录，
+     * 执行失败的批次不会被记录，重新执行时会再次操作
+     *
+     * @param operator        批量操作算符
+     * @param batchSize       单批次大小
+     * @param executorService 操作用的线程池
+     * @param ignoreException 线程内有异常时是否抛出,false时抛出
+     * @param checkpointStore 检查点存储
+     * @param jobId           任务id
+     * @param <T>             数据类型
+     * @return 本次执行的操作成功数，跳过的批次不计入
+     */
+    public static <T> long batchParallelOperate(BatchOperator<T> operator, int batchSize,
+                                                ExecutorService executorService, boolean ignoreException,
+                                                CheckpointStore checkpointStore, String jobId)
+            throws InterruptedException {
+        if (batchSize <= 0) {
+            throw new InvalidParameterException("Batch size should be greater than 0, but actual value is " + batchSize);
+        }
+        T data = operator.oriData();
+        int size = operator.calcSize(data);
+        List<StatusJob<T>> jobList = new ArrayList<>(size / batchSize + 1);
+        for (BatchRange range : splitBySize(size, batchSize)) {
+            if (checkpointStore.isCompleted(jobId, range.start, range.size)) {
+                continue;
+            }
+            StatusJob<T> statusJob = new StatusJob<>(operator.toSmallBatch(range.start, range.size),
+                    range.size);
+            statusJob.range = range;
             jobList.add(statusJob);
         }
-        AtomicInteger res = new AtomicInteger(0);
-        CountDownLatch countDownLatch = new CountDownLatch(jobList.size());
-        jobList.forEach(job ->
-                executorService.submit(() -> {
-                    try {
-                        int successCnt = operator.operate(job.data);
-                        res.addAndGet(successCnt);
-                    } catch (Exception e) {
-                        job.e = e;
-                    } finally {
-                        job.finished = true;
-                        countDownLatch.countDown();
-                    }
-                }));
-        countDownLatch.await();
+        return executeJobs(operator.jobName(), jobList.size(), jobList, (job, recorder) -> {
+            job.successCnt = operateBatch(operator, job.data, job.rows, job.enqueueNanos, recorder);
+            checkpointStore.markCompleted(jobId, job.range.start, job.range.size);
+        }, executorService, ignoreException, null);
+    }
+
+    /**
+     * 按权重分批操作，每批的总权重不超过maxBatchWeight
+     *
+     * @param operator       批量操作算符
+     * @param weigher        单个元素的权重计算函数，例如估算的字节数
+     * @param maxBatchWeight 单批次最大权重
+     * @param <E>            元素类型
+     * @return 操作成功数
+     */
+    public static <E> long batchOperate(BatchOperator<List<E>> operator, ToLongFunction<? super E> weigher,
+                                        long maxBatchWeight) {
+        return batchOperate(operator, weigher, maxBatchWeight, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 按权重分批操作，每批的总权重不超过maxBatchWeight，元素数量不超过maxBatchSize
+     * 单个元素的权重已经超过maxBatchWeight时，该元素单独成为一批
+     *
+     * @param operator       批量操作算符
+     * @param weigher        单个元素的权重计算函数，例如估算的字节数
+     * @param maxBatchWeight 单批次最大权重
+     * @param maxBatchSize   单批次最大元素数量
+     * @param <E>            元素类型
+     * @return 操作成功数
+     */
+    public static <E> long batchOperate(BatchOperator<List<E>> operator, ToLongFunction<? super E> weigher,
+                                        long maxBatchWeight, int maxBatchSize) {
+        List<BatchRange> rangeList = splitByWeight(operator, weigher, maxBatchWeight, maxBatchSize);
+        BatchMetrics.JobRecorder recorder = batchMetrics.startJob(operator.jobName(), rangeList.size());
+        long res = 0L;
+        try {
+            for (BatchRange range : rangeList) {
+                res += operateBatch(operator, operator.toSmallBatch(range.start, range.size), range.size, recorder);
+            }
+        } finally {
+            recorder.onFinish(System.nanoTime());
+        }
+        return res;
+    }
+
+    /**
+     * 按权重分批的并发批量操作，每批的总权重不超过maxBatchWeight，元素数量不超过maxBatchSize，
+     * 同时所有执行中批次的总权重不超过maxInFlightWeight，超过时提交线程阻塞等待
+     *
+     * @param operator          批量操作算符
+     * @param weigher           单个元素的权重计算函数，例如估算的字节数
+     * @param maxBatchWeight    单批次最大权重
+     * @param maxBatchSize      单批次最大元素数量
+     * @param maxInFlightWeight 所有执行中批次的最大总权重
+     * @param executorService   操作用的线程池
+     * @param ignoreException   线程内有异常时是否抛出,false时抛出
+     * @param <E>               元素类型
+     * @return 操作成功数
+     */
+    public static <E> long batchParallelOperate(BatchOperator<List<E>> operator, ToLongFunction<? super E> weigher,
+                                                long maxBatchWeight, int maxBatchSize, long maxInFlightWeight,
+                                                ExecutorService executorService, boolean ignoreException)
+            throws InterruptedException {
+        WeightLimiter weightLimiter = new WeightLimiter(maxInFlightWeight);
+        List<BatchRange> rangeList = splitByWeight(operator, weigher, maxBatchWeight, maxBatchSize);
+        List<StatusJob<List<E>>> jobList = new ArrayList<>(rangeList.size());
+        for (BatchRange range : rangeList) {
+            StatusJob<List<E>> statusJob = new StatusJob<>(operator.toSmallBatch(range.start, range.size),
+                    range.size);
+            statusJob.weight = range.weight;
+            jobList.add(statusJob);
+        }
+        return executeJobs(operator.jobName(), jobList.size(), jobList,
+                (job, recorder) -> job.successCnt = operateBatch(operator, job.data, job.rows, job.enqueueNanos,
+                        recorder),
+                executorService, ignoreException, weightLimiter);
+    }
+
+    /**
+     * 使用内置线程池按key分片进行并发批量操作，同一个key的数据保证按原始顺序操作
+     *
+     * @param operator  批量操作算符
+     * @param keyFunc   分片key的计算函数
+     * @param shardNum  分片数，即同时并发的最大通道数
+     * @param batchSize 单批次大小
+     * @param <E>       元素类型
+     * @return 操作成功数
+     */
+    public static <E> long batchShardedOperate(BatchOperator<List<E>> operator, Function<? super E, ?> keyFunc,
+                                               int shardNum, int batchSize) throws InterruptedException {
+        return batchShardedOperate(operator, keyFunc, shardNum, batchSize, defaultExecutor(), true);
+    }
+
+    /**
+     * 按key分片的并发批量操作
+     * 每个元素根据key的hash值路由到固定的分片，分片内按原始顺序分批串行操作，分片之间并发执行，
+     * 因此同一个key的数据不会乱序。分片内某一批操作异常后，该分片剩余的批次不再执行，避免后续数据越过失败的数据，
+     * 该分片异常前已完成批次的成功数仍计入返回值
+     *
+     * @param operator        批量操作算符
+     * @param keyFunc         分片key的计算函数
+     * @param shardNum        分片数，即同时并发的最大通道数
+     * @param batchSize       单批次大小
+     * @param executorService 操作用的线程池
+     * @param ignoreException 线程内有异常时是否抛出,false时抛出
+     * @param <E>             元素类型
+     * @return 操作成功数
+     */
+    public static <E> long batchShardedOperate(BatchOperator<List<E>> operator, Function<? super E, ?> keyFunc,
+                                               int shardNum, int batchSize,
+                                               ExecutorService executorService, boolean ignoreException)
+            throws InterruptedException {
+        if (batchSize <= 0) {
+            throw new InvalidParameterException("Batch size should be greater than 0, but actual value is " + batchSize);
+        }
+        if (shardNum <= 0) {
+            throw new InvalidParameterException("Shard num should be greater than 0, but actual value is " + shardNum);
+        }
+        List<E> data = operator.oriData();
+        int size = operator.calcSize(data);
+        if (size <= 0) {
+            return 0L;
+        }
+        List<List<E>> shards = new ArrayList<>(shardNum);
+        for (int i = 0; i < shardNum; i++) {
+            shards.add(new ArrayList<>(size / shardNum + 1));
+        }
+        for (E element : data) {
+            Object key = keyFunc.apply(element);
+            int hash = key == null ? 0 : spread(key.hashCode());
+            shards.get(hash % shardNum).add(element);
+        }
+        List<StatusJob<List<E>>> jobList = new ArrayList<>(shardNum);
+        int batchCount = 0;
+        for (List<E> shard : shards) {
+            if (!shard.isEmpty()) {
+                jobList.add(new StatusJob<>(shard, shard.size()));
+                batchCount += (shard.size() - 1) / batchSize + 1;
+            }
+        }
+        return executeJobs(operator.jobName(), batchCount, jobList, (job, recorder) -> {
+            List<E> shard = job.data;
+            int shardSize = shard.size();
+            int index = 0;
+            // 只有分片的第一批需要在线程池中排队，后续批次紧接着执行
+            long enqueueNanos = job.enqueueNanos;
+            while (index < shardSize) {
+                int end = index + Math.min(batchSize, shardSize - index);
+                // 每批完成后立即累加，后续批次异常时已完成的成功数不会丢失
+                job.successCnt += operateBatch(operator, shard.subList(index, end), end - index, enqueueNanos,
+                        recorder);
+                index = end;
+                enqueueNanos = System.nanoTime();
+            }
+        }, executorService, ignoreException, null);
+    }
+
+    /**
+     * 在线程池中执行所有任务并等待完成，汇总成功数
+     *
+     * @param jobName         任务名称
+     * @param batchCount      所有任务包含的批次总数
+     * @param jobList         任务列表
+     * @param task            单个任务的操作
+     * @param executorService 操作用的线程池
+     * @param ignoreException 线程内有异常时是否抛出,false时抛出
+     * @param weightLimiter   执行中批次的总权重限制，为null时不限制
+     * @param <T>             数据类型
+     * @return 操作成功数
+     */
+    private static <T> long executeJobs(String jobName, int batchCount, List<StatusJob<T>> jobList,
+                                        JobTask<T> task, ExecutorService executorService,
+                                        boolean ignoreException, WeightLimiter weightLimiter)
+            throws InterruptedException {
+        BatchMetrics.JobRecorder recorder = batchMetrics.startJob(jobName, batchCount);
+        AtomicLong res = new AtomicLong(0);
+        try {
+            CountDownLatch countDownLatch = new CountDownLatch(jobList.size());
+            for (StatusJob<T> job : jobList) {
+                if (weightLimiter != null) {
+                    weightLimiter.acquire(job.weight);
+                }
+                job.enqueueNanos = System.nanoTime();
+                try {
+                    executorService.submit(() -> {
+                        try {
+                            task.run(job, recorder);
+                        } catch (Exception e) {
+                            job.e = e;
+                        } finally {
+                            // 异常时也累加已完成部分的成功数
+                            res.addAndGet(job.successCnt);
+                            finishJob(job, weightLimiter, countDownLatch);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    // 被拒绝的批次按失败处理，继续提交并等待已提交的批次完成，避免返回后仍有批次在修改数据
+                    job.e = e;
+                    finishJob(job, weightLimiter, countDownLatch);
+                }
+            }
+            countDownLatch.await();
+        } finally {
+            recorder.onFinish(System.nanoTime());
+        }
         jobList.forEach(job -> {
             if (job.e != null) {
                 if (ignoreException) {
@@ -145,13 +469,189 @@ public final class BatchUtils {
         return res.get();
     }
 
+    /**
+     * 标记任务结束，释放权重并通知等待的线程
+     *
+     * @param job            任务
+     * @param weightLimiter  执行中批次的总权重限制，为null时不限制
+     * @param countDownLatch 等待所有任务完成的计数器
+     */
+    private static void finishJob(StatusJob<?> job, WeightLimiter weightLimiter, CountDownLatch countDownLatch) {
+        job.finished = true;
+        if (weightLimiter != null) {
+            weightLimiter.release(job.weight);
+        }
+        countDownLatch.countDown();
+    }
+
+    /**
+     * 在当前线程中操作一个批次并上报监控统计
+     *
+     * @param operator 批量操作算符
+     * @param data     批次数据
+     * @param rows     批次数据量
+     * @param recorder 任务的记录器
+     * @param <T>      数据类型
+     * @return 操作成功数
+     */
+    private static <T> int operateBatch(BatchOperator<T> operator, T data, int rows,
+                                        BatchMetrics.JobRecorder recorder) {
+        return operateBatch(operator, data, rows, System.nanoTime(), recorder);
+    }
+
+    /**
+     * 在当前线程中操作一个批次并上报监控统计
+     *
+     * @param operator     批量操作算符
+     * @param data         批次数据
+     * @param rows         批次数据量
+     * @param enqueueNanos 批次提交到线程池的时间
+     * @param recorder     任务的记录器
+     * @param <T>          数据类型
+     * @return 操作成功数
+     */
+    private static <T> int operateBatch(BatchOperator<T> operator, T data, int rows, long enqueueNanos,
+                                        BatchMetrics.JobRecorder recorder) {
+        long startNanos = System.nanoTime();
+        int successCnt = 0;
+        boolean success = false;
+        try {
+            successCnt = operator.operate(data);
+            success = true;
+            return successCnt;
+        } finally {
+            recorder.onBatch(enqueueNanos, startNanos, System.nanoTime(), rows, successCnt, success);
+        }
+    }
+
+    /**
+     * 按固定数量计算分批范围
+     *
+     * @param size      数据总量
+     * @param batchSize 单批次大小
+     * @return 分批范围列表
+     */
+    private static List<BatchRange> splitBySize(int size, int batchSize) {
+        List<BatchRange> rangeList = new ArrayList<>(Math.max(size, 0) / batchSize + 1);
+        int index = 0;
+        while (index < size) {
+            int rangeSize = Math.min(batchSize, size - index);
+            rangeList.add(new BatchRange(index, rangeSize, rangeSize));
+            index += rangeSize;
+        }
+        return rangeList;
+    }
+
+    /**
+     * 按权重计算分批范围
+     *
+     * @param operator       批量操作算符
+     * @param weigher        单个元素的权重计算函数
+     * @param maxBatchWeight 单批次最大权重
+     * @param maxBatchSize   单批次最大元素数量
+     * @param <E>            元素类型
+     * @return 分批范围列表
+     */
+    private static <E> List<BatchRange> splitByWeight(BatchOperator<List<E>> operator,
+                                                      ToLongFunction<? super E> weigher,
+                                                      long maxBatchWeight, int maxBatchSize) {
+        if (maxBatchWeight <= 0) {
+            throw new InvalidParameterException("Max batch weight should be greater than 0, but actual value is "
+                    + maxBatchWeight);
+        }
+        if (maxBatchSize <= 0) {
+            throw new InvalidParameterException("Batch size should be greater than 0, but actual value is "
+                    + maxBatchSize);
+        }
+        List<E> data = operator.oriData();
+        List<BatchRange> rangeList = new ArrayList<>();
+        int start = 0;
+        int index = 0;
+        long batchWeight = 0L;
+        for (E element : data) {
+            long weight = weigher.applyAsLong(element);
+            if (weight < 0) {
+                throw new InvalidParameterException("Element weight should not be negative, but actual value is "
+                        + weight + " at index " + index);
+            }
+            int batchCount = index - start;
+            if (batchCount > 0 && (batchCount >= maxBatchSize || batchWeight + weight > maxBatchWeight)) {
+                rangeList.add(new BatchRange(start, batchCount, batchWeight));
+                start = index;
+                batchWeight = 0L;
+            }
+            batchWeight += weight;
+            index++;
+        }
+        if (index > start) {
+            rangeList.add(new BatchRange(start, index - start, batchWeight));
+        }
+        return rangeList;
+    }
+
+    /**
+     * 获取内置线程池
+     *
+     * @return 默认注册中心的默认线程池
+     */
+    private static ExecutorService defaultExecutor() {
+        return BatchExecutorRegistry.getDefault().getExecutor(BatchExecutorRegistry.DEFAULT_POOL);
+    }
+
+    /**
+     * 打散hash值并保证非负
+     *
+     * @param hash 原始hash值
+     * @return 非负的hash值
+     */
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) & Integer.MAX_VALUE;
+    }
+
+    /**
+     * 分批范围
+     */
+    private static class BatchRange {
+        private final int start;
+        private final int size;
+        private final long weight;
+
+        public BatchRange(int start, int size, long weight) {
+            this.start = start;
+            this.size = size;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * 线程池中执行的任务
+     *
+     * @param <T> 数据类型
+     */
+    private interface JobTask<T> {
+
+        /**
+         * 执行任务，成功数写入{@link StatusJob#successCnt}，每个批次完成后通过记录器上报
+         *
+         * @param job      任务
+         * @param recorder 任务的记录器
+         */
+        void run(StatusJob<T> job, BatchMetrics.JobRecorder recorder);
+    }
+
     private static class StatusJob<T> {
         private final T data;
+        private final int rows;
         private boolean finished;
         private Exception e = null;
+        private long weight = 0L;
+        private BatchRange range = null;
+        private long enqueueNanos = 0L;
+        private int successCnt = 0;
 
-        public StatusJob(T data) {
+        public StatusJob(T data, int rows) {
             this.data = data;
+            this.rows = rows;
             this.finished = false;
         }
 
@@ -0,0 +1,127 @@
+package com.ultrakid.ultratools.batch;
+
+import java.security.InvalidParameterException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 舱壁隔离，限制单个租户在共享线程池中同时执行的任务数，超过时提交线程阻塞等待，
+ * 避免一个租户占满共享线程池的线程和队列
+ * 关闭舱壁只会拒绝新任务，不会关闭共享的线程池
+ *
+ * @author ultrakid
+ * @version 1.0
+ * @date 2022/01/18 17:26
+ */
+public class Bulkhead extends AbstractExecutorService {
+
+    private final String name;
+    private final ExecutorService delegate;
+    private final int maxConcurrent;
+    private int running = 0;
+    private volatile boolean shutdown = false;
+
+    Bulkhead(String name, ExecutorService delegate, int maxConcurrent) {
+        if (maxConcurrent <= 0) {
+            throw new InvalidParameterException("Bulkhead max concurrent should be greater than 0, " +
+                    "but actual value is " + maxConcurrent);
+        }
+        this.name = name;
+        this.delegate = delegate;
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        acquire();
+        try {
+            delegate.execute(() -> {
+                try {
+                    command.run();
+                } finally {
+                    release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            release();
+            throw e;
+        }
+    }
+
+    private synchronized void acquire() {
+        try {
+            while (!shutdown && running >= maxConcurrent) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for bulkhead " + name, e);
+        }
+        if (shutdown) {
+            throw new RejectedExecutionException("Bulkhead " + name + " has been shut down");
+        }
+        running++;
+    }
+
+    private synchronized void release() {
+        running--;
+        notifyAll();
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        shutdown = true;
+        notifyAll();
+    }
+
+    /**
+     * 任务已经提交到共享线程池，无法取回，只会拒绝新任务
+     *
+     * @return 空列表
+     */
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown();
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public synchronized boolean isTerminated() {
+        return shutdown && running == 0;
+    }
+
+    @Override
+    public synchronized boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long remainNanos = unit.toNanos(timeout);
+        long deadline = System.nanoTime() + remainNanos;
+        while (!isTerminated()) {
+            if (remainNanos <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remainNanos);
+            remainNanos = deadline - System.nanoTime();
+        }
+        return true;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    public synchronized int getRunningCount() {
+        return running;
+    }
+}
@@ -0,0 +1,52 @@
+package com.ultrakid.ultratools.batch;
+
+import java.security.InvalidParameterException;
+
+/**
+ * 权重限制器，限制同时在执行中的批次总权重
+ * 单个批次的权重超过上限时，只要当前没有执行中的批次仍然允许通过，避免永远阻塞
+ *
+ * @author ultrakid
+ * @version 1.0
+ * @date 2022/01/12 15:20
+ */
+class WeightLimiter {
+
+    private final long maxWeight;
+    private long inFlightWeight = 0L;
+
+    WeightLimiter(long maxWeight) {
+        if (maxWeight <= 0) {
+            throw new InvalidParameterException("Max in-flight weight should be greater than 0, but actual value is "
+                    + maxWeight);
+        }
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * 获取权重，总权重超过上限时阻塞等待
+     *
+     * @param weight 待获取的权重
+     * @throws InterruptedException 等待时被打断
+     */
+    synchronized void acquire(long weight) throws InterruptedException {
+        while (inFlightWeight > 0 && inFlightWeight + weight > maxWeight) {
+            wait();
+        }
+        inFlightWeight += weight;
+    }
+
+    /**
+     * 释放权重并唤醒等待者
+     *
+     * @param weight 待释放的权重
+     */
+    synchronized void release(long weight) {
+        inFlightWeight -= weight;
+        notifyAll();
+    }
+
+    synchronized long getInFlightWeight() {
+        return inFlightWeight;
+    }
+}
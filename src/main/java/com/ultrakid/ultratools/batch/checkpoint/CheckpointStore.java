@@ -0,0 +1,38 @@
+package com.ultrakid.ultratools.batch.checkpoint;
+
+/**
+ * 批量操作的检查点存储，记录已完成的批次范围，任务中断后重新执行时跳过已完成的批次
+ * 批次按范围逐个记录，不依赖完成顺序，因此可以用于并发批量操作
+ *
+ * @author ultrakid
+ * @version 1.0
+ * @date 2022/01/14 10:32
+ */
+public interface CheckpointStore {
+
+    /**
+     * 判断批次是否已经完成
+     *
+     * @param jobId 任务id
+     * @param start 批次起始
+     * @param size  批次数量
+     * @return true表示已完成
+     */
+    boolean isCompleted(String jobId, int start, int size);
+
+    /**
+     * 记录批次已完成，返回时需保证记录已经持久化
+     *
+     * @param jobId 任务id
+     * @param start 批次起始
+     * @param size  批次数量
+     */
+    void markCompleted(String jobId, int start, int size);
+
+    /**
+     * 清除任务的所有检查点
+     *
+     * @param jobId 任务id
+     */
+    void clear(String jobId);
+}
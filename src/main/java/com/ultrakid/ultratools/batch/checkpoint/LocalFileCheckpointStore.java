@@ -0,0 +1,203 @@
+package com.ultrakid.ultratools.batch.checkpoint;
+
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import com.ultrakid.ultratools.exception.UltraRuntimeException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.InvalidParameterException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 基于本地文件的检查点存储
+ * 每个任务对应目录下的一个文件，每完成一个批次追加一行"start,size"并fsync，
+ * 进程崩溃时最后一行可能不完整，部分文件系统还可能在末尾留下填充0等无法解析的内容，
+ * 加载时从第一行不完整或无法解析的内容开始截掉，之后的批次会重新执行
+ *
+ * @author ultrakid
+ * @version 1.0
+ * @date 2022/01/14 11:05
+ */
+public class LocalFileCheckpointStore implements CheckpointStore, Closeable {
+
+    private static final Log LOGGER = LogFactory.get(LocalFileCheckpointStore.class);
+
+    private static final Pattern JOB_ID_PATTERN = Pattern.compile("[A-Za-z0-9._-]+");
+
+    private static final String FILE_SUFFIX = ".ckpt";
+
+    private final Path directory;
+
+    private final Map<String, JobCheckpoint> jobMap = new ConcurrentHashMap<>();
+
+    /**
+     * 构造方法
+     *
+     * @param directory 检查点文件所在目录，不存在时自动创建
+     */
+    public LocalFileCheckpointStore(Path directory) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UltraRuntimeException("Failed to create checkpoint directory " + directory, e);
+        }
+        this.directory = directory;
+    }
+
+    @Override
+    public boolean isCompleted(String jobId, int start, int size) {
+        return getJob(jobId).isCompleted(start, size);
+    }
+
+    @Override
+    public void markCompleted(String jobId, int start, int size) {
+        getJob(jobId).markCompleted(start, size);
+    }
+
+    @Override
+    public void clear(String jobId) {
+        checkJobId(jobId);
+        JobCheckpoint job = jobMap.remove(jobId);
+        if (job != null) {
+            job.close();
+        }
+        try {
+            Files.deleteIfExists(jobFile(jobId));
+        } catch (IOException e) {
+            throw new UltraRuntimeException("Failed to clear checkpoint of job " + jobId, e);
+        }
+    }
+
+    /**
+     * 关闭所有打开的检查点文件
+     */
+    @Override
+    public void close() {
+        jobMap.values().forEach(JobCheckpoint::close);
+        jobMap.clear();
+    }
+
+    private JobCheckpoint getJob(String jobId) {
+        checkJobId(jobId);
+        return jobMap.computeIfAbsent(jobId, id -> new JobCheckpoint(jobFile(id)));
+    }
+
+    private Path jobFile(String jobId) {
+        return directory.resolve(jobId + FILE_SUFFIX);
+    }
+
+    private static void checkJobId(String jobId) {
+        if (jobId == null || !JOB_ID_PATTERN.matcher(jobId).matches()) {
+            throw new InvalidParameterException("Job id should only contain letters, digits, '.', '_' or '-', " +
+                    "but actual value is " + jobId);
+        }
+    }
+
+    private static long toKey(int start, int size) {
+        return ((long) start << 32) | (size & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 单个任务的检查点文件
+     */
+    private static class JobCheckpoint {
+        private final Path file;
+        private final Set<Long> completedSet = new HashSet<>();
+        private FileChannel channel;
+
+        JobCheckpoint(Path file) {
+            this.file = file;
+            try {
+                channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+                load();
+            } catch (IOException e) {
+                close();
+                throw new UltraRuntimeException("Failed to open checkpoint file " + file, e);
+            }
+        }
+
+        synchronized boolean isCompleted(int start, int size) {
+            return completedSet.contains(toKey(start, size));
+        }
+
+        synchronized void markCompleted(int start, int size) {
+            if (!completedSet.add(toKey(start, size))) {
+                return;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap((start + "," + size + "\n").getBytes(StandardCharsets.US_ASCII));
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                completedSet.remove(toKey(start, size));
+                throw new UltraRuntimeException("Failed to write checkpoint file " + file, e);
+            }
+        }
+
+        synchronized void close() {
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // 关闭失败不影响已经fsync的记录
+            }
+            channel = null;
+        }
+
+        private void load() throws IOException {
+            byte[] content = Files.readAllBytes(file);
+            int lineStart = 0;
+            for (int i = 0; i < content.length; i++) {
+                if (content[i] != '\n') {
+                    continue;
+                }
+                String line = new String(content, lineStart, i - lineStart, StandardCharsets.US_ASCII);
+                if (!parseLine(line)) {
+                    // 崩溃后留下的损坏内容，从这一行开始全部丢弃
+                    LOGGER.warn("Corrupted checkpoint line in {} at offset {}, truncating", file, lineStart);
+                    break;
+                }
+                lineStart = i + 1;
+            }
+            // 截掉崩溃时写了一半或者损坏的行，后续从最后一个有效的行之后追加
+            channel.truncate(lineStart);
+            channel.position(lineStart);
+        }
+
+        /**
+         * 解析一行"start,size"记录
+         *
+         * @param line 行内容，不包含换行符
+         * @return 是否解析成功
+         */
+        private boolean parseLine(String line) {
+            int commaIndex = line.indexOf(',');
+            if (commaIndex <= 0) {
+                return false;
+            }
+            try {
+                completedSet.add(toKey(Integer.parseInt(line.substring(0, commaIndex)),
+                        Integer.parseInt(line.substring(commaIndex + 1))));
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+    }
+}
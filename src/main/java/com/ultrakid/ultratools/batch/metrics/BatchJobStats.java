@@ -0,0 +1,115 @@
+package com.ultrakid.ultratools.batch.metrics;
+
+import com.ultrakid.ultratools.common.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个批量任务的汇总统计，包括排队等待和operate耗时的直方图、数据量和吞吐量
+ *
+ * @author ultrakid
+ * @version 1.0
+ * @date 2022/01/25 15:02
+ */
+public class BatchJobStats implements BatchMetrics.JobRecorder {
+
+    private final String jobName;
+    private final int batchCount;
+    private final long startNanos;
+    private volatile long endNanos = 0L;
+    private final LatencyHistogram queueWaitHistogram = new LatencyHistogram();
+    private final LatencyHistogram operateHistogram = new LatencyHistogram();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder successCnt = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+
+    public BatchJobStats(String jobName, int batchCount) {
+        this.jobName = jobName;
+        this.batchCount = batchCount;
+        this.startNanos = System.nanoTime();
+    }
+
+    @Override
+    public void onBatch(long enqueueNanos, long startNanos, long endNanos, int rows, int successCnt,
+                        boolean success) {
+        queueWaitHistogram.record(startNanos - enqueueNanos);
+        operateHistogram.record(endNanos - startNanos);
+        this.rows.add(rows);
+        this.successCnt.add(successCnt);
+        if (!success) {
+            failedBatches.increment();
+        }
+    }
+
+    @Override
+    public void onFinish(long endNanos) {
+        this.endNanos = endNanos;
+    }
+
+    /**
+     * 任务耗时，未结束时返回截至当前的耗时
+     *
+     * @return 耗时纳秒数
+     */
+    public long getElapsedNanos() {
+        long curEndNanos = endNanos;
+        return (curEndNanos == 0L ? System.nanoTime() : curEndNanos) - startNanos;
+    }
+
+    /**
+     * 任务是否已结束
+     *
+     * @return true表示已结束
+     */
+    public boolean isFinished() {
+        return endNanos != 0L;
+    }
+
+    /**
+     * 每秒处理的数据量
+     *
+     * @return 吞吐量
+     */
+    public double getRowsPerSecond() {
+        long elapsedNanos = getElapsedNanos();
+        return elapsedNanos <= 0 ? 0D : rows.sum() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public int getBatchCount() {
+        return batchCount;
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getSuccessCnt() {
+        return successCnt.sum();
+    }
+
+    public long getFailedBatches() {
+        return failedBatches.sum();
+    }
+
+    public LatencyHistogram getQueueWaitHistogram() {
+        return queueWaitHistogram;
+    }
+
+    public LatencyHistogram getOperateHistogram() {
+        return operateHistogram;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Batch job %s: batches=%d, failed=%d, rows=%d, success=%d, elapsed=%.3fms, " +
+                        "rows/sec=%.1f, queueWait[%s], operate[%s]",
+                jobName, batchCount, getFailedBatches(), getRows(), getSuccessCnt(),
+                getElapsedNanos() / (double) TimeUnit.MILLISECONDS.toNanos(1), getRowsPerSecond(),
+                queueWaitHistogram.toMillisString(), operateHistogram.toMillisString());
+    }
+}
@@ -0,0 +1,71 @@
+package com.ultrakid.ultratools.batch.metrics;
+
+/**
+ * 批量操作的监控统计
+ * 每次调用BatchUtils的批量操作方法视为一个任务，开始时通过{@link #startJob}获取任务的记录器，
+ * 每个批次执行完成后回调{@link JobRecorder#onBatch}，所有批次完成后回调{@link JobRecorder#onFinish}
+ *
+ * @author ultrakid
+ * @version 1.0
+ * @date 2022/01/25 14:36
+ */
+public interface BatchMetrics {
+
+    /**
+     * 不做任何统计的默认实现
+     */
+    BatchMetrics NOOP = (jobName, batchCount) -> JobRecorder.NOOP;
+
+    /**
+     * 任务开始
+     *
+     * @param jobName    任务名称
+     * @param batchCount 批次数
+     * @return 任务的记录器
+     */
+    JobRecorder startJob(String jobName, int batchCount);
+
+    /**
+     * 单个任务的记录器，并发批量操作时会被多个线程同时回调，实现需要线程安全
+     * 时间均为{@link System#nanoTime()}的值
+     *
+     * @author ultrakid
+     * @version 1.0
+     * @date 2022/01/25 14:36
+     */
+    interface JobRecorder {
+
+        /**
+         * 不做任何记录的默认实现
+         */
+        JobRecorder NOOP = new JobRecorder() {
+            @Override
+            public void onBatch(long enqueueNanos, long startNanos, long endNanos, int rows, int successCnt,
+                                boolean success) {
+            }
+
+            @Override
+            public void onFinish(long endNanos) {
+            }
+        };
+
+        /**
+         * 单个批次执行完成
+         *
+         * @param enqueueNanos 批次提交到线程池的时间，串行操作时等于开始时间
+         * @param startNanos   operate开始时间
+         * @param endNanos     operate结束时间
+         * @param rows         批次数据量
+         * @param successCnt   operate返回的操作成功数，异常时为0
+         * @param success      是否正常完成
+         */
+        void onBatch(long enqueueNanos, long startNanos, long endNanos, int rows, int successCnt, boolean success);
+
+        /**
+         * 任务结束
+         *
+         * @param endNanos 结束时间
+         */
+        void onFinish(long endNanos);
+    }
+}
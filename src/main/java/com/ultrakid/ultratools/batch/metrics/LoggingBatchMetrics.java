@@ -0,0 +1,27 @@
+package com.ultrakid.ultratools.batch.metrics;
+
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+
+/**
+ * 任务结束时通过日志输出汇总统计的默认实现
+ *
+ * @author ultrakid
+ * @version 1.0
+ * @date 2022/01/25 15:40
+ */
+public class LoggingBatchMetrics implements BatchMetrics {
+
+    private static final Log LOGGER = LogFactory.get(LoggingBatchMetrics.class);
+
+    @Override
+    public JobRecorder startJob(String jobName, int batchCount) {
+        return new BatchJobStats(jobName, batchCount) {
+            @Override
+            public void onFinish(long endNanos) {
+                super.onFinish(endNanos);
+                LOGGER.info("{}", this);
+            }
+        };
+    }
+}
@@ -39,4 +39,13 @@ public interface BatchOperator<T> {
      * @return 操作成功数
      */
     int operate(T data);
+
+    /**
+     * 任务名称，用于批量操作的监控统计
+     *
+     * @return 任务名称，默认为类名
+     */
+    default String jobName() {
+        return getClass().getName();
+    }
 }
@@ -67,21 +67,54 @@ public class ConcurrentLRUCache<K, V> extends LinkedHashMap<K, V> {
 
     }
 
+    /**
+     * 按访问顺序排序时get会调整内部链表，因此需要加写锁
+     *
+     * @param key 键
+     * @return 值
+     */
     @Override
     public V get(Object key) {
-        readLock.lock();
+        writeLock.lock();
         try {
             return super.get(key);
         } finally {
-            readLock.unlock();
+            writeLock.unlock();
         }
     }
 
+    /**
+     * 与get相同，需要加写锁
+     *
+     * @param key          键
+     * @param defaultValue 默认值
+     * @return 值
+     */
     @Override
     public V getOrDefault(Object key, V defaultValue) {
-        readLock.lock();
+        writeLock.lock();
         try {
             return super.getOrDefault(key, defaultValue);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        readLock.lock();
+        try {
+            return super.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        readLock.lock();
+        try {
+            return super.isEmpty();
         } finally {
             readLock.unlock();
         }
@@ -172,7 +205,7 @@ public class ConcurrentLRUCache<K, V> extends LinkedHashMap<K, V> {
         try {
             return super.putIfAbsent(key, value);
         } finally {
-            writeLock.lock();
+            writeLock.unlock();
         }
     }
 
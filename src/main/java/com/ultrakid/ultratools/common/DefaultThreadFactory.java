@@ -16,6 +16,8 @@ public class DefaultThreadFactory implements ThreadFactory {
     private final ThreadGroup group;
     private final AtomicInteger threadNumber = new AtomicInteger(1);
     private final String namePrefix;
+    private final boolean daemon;
+    private final int priority;
 
     /**
      * @see java.util.concurrent.Executors
@@ -27,6 +29,8 @@ public class DefaultThreadFactory implements ThreadFactory {
         namePrefix = "pool-" +
                 poolNumber.getAndIncrement() +
                 "-thread-";
+        daemon = false;
+        priority = Thread.NORM_PRIORITY;
     }
 
     /**
@@ -35,6 +39,31 @@ public class DefaultThreadFactory implements ThreadFactory {
      * @param poolName 线程池名称
      */
     public DefaultThreadFactory(String poolName) {
+        this(poolName, false);
+    }
+
+    /**
+     * 自定义线程池名称和是否守护线程的构造方法
+     *
+     * @param poolName 线程池名称
+     * @param daemon   是否守护线程，守护线程不会阻止JVM退出
+     */
+    public DefaultThreadFactory(String poolName, boolean daemon) {
+        this(poolName, daemon, Thread.NORM_PRIORITY);
+    }
+
+    /**
+     * 自定义线程池名称、是否守护线程和优先级的构造方法
+     *
+     * @param poolName 线程池名称
+     * @param daemon   是否守护线程，守护线程不会阻止JVM退出
+     * @param priority 线程优先级
+     */
+    public DefaultThreadFactory(String poolName, boolean daemon, int priority) {
+        if (priority < Thread.MIN_PRIORITY || priority > Thread.MAX_PRIORITY) {
+            throw new IllegalArgumentException("Thread priority should be in [" + Thread.MIN_PRIORITY + ", " +
+                    Thread.MAX_PRIORITY + "], but actual value is " + priority);
+        }
         SecurityManager s = System.getSecurityManager();
         group = (s != null) ? s.getThreadGroup() :
                 Thread.currentThread().getThreadGroup();
@@ -42,6 +71,8 @@ public class DefaultThreadFactory implements ThreadFactory {
                 "-pool-" +
                 poolNumber.getAndIncrement() +
                 "-thread-";
+        this.daemon = daemon;
+        this.priority = priority;
     }
 
     /**
@@ -57,11 +88,11 @@ public class DefaultThreadFactory implements ThreadFactory {
         Thread t = new Thread(group, r,
                 namePrefix + threadNumber.getAndIncrement(),
                 0);
-        if (t.isDaemon()) {
-            t.setDaemon(false);
+        if (t.isDaemon() != daemon) {
+            t.setDaemon(daemon);
         }
-        if (t.getPriority() != Thread.NORM_PRIORITY) {
-            t.setPriority(Thread.NORM_PRIORITY);
+        if (t.getPriority() != priority) {
+            t.setPriority(priority);
         }
         return t;
     }
@@ -0,0 +1,155 @@
+package com.ultrakid.ultratools.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带统计功能的线程池
+ * 统计每个任务在队列中的等待时间和执行时间的直方图、执行失败数，以及线程池所有线程消耗的CPU时间
+ * 通过submit提交的任务异常会被Future捕获，不计入失败数
+ *
+ * @author ultrakid
+ * @version 1.0
+ * @date 2022/03/01 16:45
+ */
+public class InstrumentedExecutor extends ThreadPoolExecutor {
+
+    private final String poolName;
+    private final InstrumentedThreadFactory threadFactory;
+    private final LatencyHistogram queueWaitHistogram = new LatencyHistogram();
+    private final LatencyHistogram runHistogram = new LatencyHistogram();
+    private final LongAdder failedCount = new LongAdder();
+
+    /**
+     * 构造方法
+     *
+     * @param poolName      线程池名称
+     * @param corePoolSize  核心线程数
+     * @param maxPoolSize   最大线程数
+     * @param keepAlive     空闲线程存活时间
+     * @param unit          时间单位
+     * @param workQueue     等待队列
+     * @param threadFactory 带统计功能的线程工厂
+     * @param handler       拒绝策略
+     */
+    public InstrumentedExecutor(String poolName, int corePoolSize, int maxPoolSize, long keepAlive, TimeUnit unit,
+                                BlockingQueue<Runnable> workQueue, InstrumentedThreadFactory threadFactory,
+                                RejectedExecutionHandler handler) {
+        super(corePoolSize, maxPoolSize, keepAlive, unit, workQueue, threadFactory, handler);
+        this.poolName = poolName;
+        this.threadFactory = threadFactory;
+    }
+
+    /**
+     * 创建固定线程数、有界队列的线程池，使用守护线程，队列满时抛出异常
+     *
+     * @param poolName      线程池名称
+     * @param threads       线程数
+     * @param queueCapacity 队列容量
+     * @return 线程池
+     */
+    public static InstrumentedExecutor fixed(String poolName, int threads, int queueCapacity) {
+        return new InstrumentedExecutor(poolName, threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new InstrumentedThreadFactory(poolName, true, Thread.NORM_PRIORITY,
+                        InstrumentedThreadFactory.LOGGING_HANDLER),
+                new AbortPolicy());
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        super.execute(new TimedTask(command));
+    }
+
+    /**
+     * 立即关闭，返回未执行的原始任务
+     *
+     * @return 未执行的任务
+     */
+    @Override
+    public List<Runnable> shutdownNow() {
+        List<Runnable> taskList = super.shutdownNow();
+        List<Runnable> resList = new ArrayList<>(taskList.size());
+        for (Runnable task : taskList) {
+            resList.add(task instanceof TimedTask ? ((TimedTask) task).task : task);
+        }
+        return resList;
+    }
+
+    /**
+     * 线程池状态快照
+     *
+     * @return 状态快照
+     */
+    public PoolStats getStats() {
+        return PoolStats.of(poolName, this);
+    }
+
+    /**
+     * 线程池所有线程累计消耗的CPU时间
+     *
+     * @return CPU时间纳秒数
+     */
+    public long getCpuTimeNanos() {
+        return threadFactory.getCpuTimeNanos();
+    }
+
+    public String getPoolName() {
+        return poolName;
+    }
+
+    public LatencyHistogram getQueueWaitHistogram() {
+        return queueWaitHistogram;
+    }
+
+    public LatencyHistogram getRunHistogram() {
+        return runHistogram;
+    }
+
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s, cpu=%.3fms, failed=%d, queueWait[%s], run[%s]", getStats(),
+                getCpuTimeNanos() / (double) TimeUnit.MILLISECONDS.toNanos(1), getFailedCount(),
+                queueWaitHistogram.toMillisString(), runHistogram.toMillisString());
+    }
+
+    /**
+     * 记录提交时间的任务包装
+     */
+    private class TimedTask implements Runnable {
+        private final Runnable task;
+        private final long enqueueNanos;
+
+        TimedTask(Runnable task) {
+            this.task = task;
+            this.enqueueNanos = System.nanoTime();
+        }
+
+        @Override
+        public void run() {
+            long startNanos = System.nanoTime();
+            queueWaitHistogram.record(startNanos - enqueueNanos);
+            try {
+                task.run();
+            } catch (RuntimeException | Error e) {
+                failedCount.increment();
+                throw e;
+            } finally {
+                runHistogram.record(System.nanoTime() - startNanos);
+            }
+        }
+    }
+}
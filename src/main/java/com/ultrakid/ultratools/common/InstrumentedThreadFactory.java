@@ -0,0 +1,129 @@
+package com.ultrakid.ultratools.common;
+
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 带统计功能的线程工厂
+ * 在DefaultThreadFactory的基础上设置未捕获异常的处理器，默认通过日志输出，
+ * 并通过ThreadMXBean统计本工厂创建的所有线程累计消耗的CPU时间
+ *
+ * @author ultrakid
+ * @version 1.0
+ * @date 2022/03/01 15:27
+ */
+public class InstrumentedThreadFactory extends DefaultThreadFactory {
+
+    private static final Log LOGGER = LogFactory.get(InstrumentedThreadFactory.class);
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    /**
+     * 默认的未捕获异常处理器，通过日志输出
+     */
+    public static final Thread.UncaughtExceptionHandler LOGGING_HANDLER =
+            (t, e) -> LOGGER.error(e, "Uncaught exception in thread {}", t.getName());
+
+    private final Thread.UncaughtExceptionHandler uncaughtExceptionHandler;
+    private final Set<Thread> liveThreads = ConcurrentHashMap.newKeySet();
+    private final LongAdder terminatedCpuNanos = new LongAdder();
+    private final AtomicInteger createdCount = new AtomicInteger(0);
+
+    /**
+     * 构造方法，非守护线程、普通优先级、通过日志输出未捕获异常
+     *
+     * @param poolName 线程池名称
+     */
+    public InstrumentedThreadFactory(String poolName) {
+        this(poolName, false, Thread.NORM_PRIORITY, LOGGING_HANDLER);
+    }
+
+    /**
+     * 构造方法
+     *
+     * @param poolName                 线程池名称
+     * @param daemon                   是否守护线程
+     * @param priority                 线程优先级
+     * @param uncaughtExceptionHandler 未捕获异常的处理器
+     */
+    public InstrumentedThreadFactory(String poolName, boolean daemon, int priority,
+                                     Thread.UncaughtExceptionHandler uncaughtExceptionHandler) {
+        super(poolName, daemon, priority);
+        this.uncaughtExceptionHandler = uncaughtExceptionHandler;
+    }
+
+    @Override
+    public Thread newThread(Runnable r) {
+        Thread t = super.newThread(() -> {
+            try {
+                r.run();
+            } finally {
+                // 线程结束前记录本线程的CPU时间，结束后ThreadMXBean就查不到了，
+                // 先从存活线程中移除再累加，避免统计时同一个线程的CPU时间被计算两次
+                long cpuNanos = currentThreadCpuNanos();
+                liveThreads.remove(Thread.currentThread());
+                if (cpuNanos > 0) {
+                    terminatedCpuNanos.add(cpuNanos);
+                }
+            }
+        });
+        if (uncaughtExceptionHandler != null) {
+            t.setUncaughtExceptionHandler(uncaughtExceptionHandler);
+        }
+        liveThreads.add(t);
+        createdCount.incrementAndGet();
+        return t;
+    }
+
+    /**
+     * 本工厂创建的所有线程累计消耗的CPU时间，JVM不支持或未开启线程CPU时间统计时返回0
+     *
+     * @return CPU时间纳秒数
+     */
+    public long getCpuTimeNanos() {
+        long cpuNanos = terminatedCpuNanos.sum();
+        if (!isCpuTimeEnabled()) {
+            return cpuNanos;
+        }
+        for (Thread t : liveThreads) {
+            long threadCpuNanos = THREAD_MX_BEAN.getThreadCpuTime(t.getId());
+            if (threadCpuNanos > 0) {
+                cpuNanos += threadCpuNanos;
+            }
+        }
+        return cpuNanos;
+    }
+
+    /**
+     * 存活的线程数
+     *
+     * @return 线程数
+     */
+    public int getLiveThreadCount() {
+        return liveThreads.size();
+    }
+
+    /**
+     * 累计创建的线程数
+     *
+     * @return 线程数
+     */
+    public int getCreatedThreadCount() {
+        return createdCount.get();
+    }
+
+    private static boolean isCpuTimeEnabled() {
+        return THREAD_MX_BEAN.isThreadCpuTimeSupported() && THREAD_MX_BEAN.isThreadCpuTimeEnabled();
+    }
+
+    private static long currentThreadCpuNanos() {
+        return isCpuTimeEnabled() ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : 0L;
+    }
+}
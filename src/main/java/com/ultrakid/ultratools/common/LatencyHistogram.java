@@ -0,0 +1,97 @@
+package com.ultrakid.ultratools.common;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 线程安全的耗时直方图
+ * 按2的幂次分桶，记录时只做原子累加不分配对象，百分位数返回所在桶的上界，误差在2倍以内
+ *
+ * @author ultrakid
+ * @version 1.0
+ * @date 2022/01/25 10:17
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKET_NUM = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_NUM);
+    private final AtomicLong count = new AtomicLong(0);
+    private final AtomicLong sum = new AtomicLong(0);
+    private final AtomicLong max = new AtomicLong(0);
+
+    /**
+     * 记录一个值，负数按0处理
+     *
+     * @param value 值，一般为纳秒
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        // 桶i记录[2^i, 2^(i+1))范围内的值，0记录在桶0
+        buckets.incrementAndGet(value == 0 ? 0 : BUCKET_NUM - 1 - Long.numberOfLeadingZeros(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long curMax = max.get();
+        while (value > curMax && !max.compareAndSet(curMax, value)) {
+            curMax = max.get();
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getSum() {
+        return sum.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long curCount = count.get();
+        return curCount == 0 ? 0D : (double) sum.get() / curCount;
+    }
+
+    /**
+     * 计算百分位数
+     *
+     * @param percentile 百分位，取值范围(0, 100]
+     * @return 百分位数所在桶的上界，不超过最大值
+     */
+    public long getPercentile(double percentile) {
+        long curCount = count.get();
+        if (curCount == 0) {
+            return 0L;
+        }
+        long threshold = (long) Math.ceil(curCount * percentile / 100D);
+        long accumulated = 0L;
+        for (int i = 0; i < BUCKET_NUM; i++) {
+            accumulated += buckets.get(i);
+            if (accumulated >= threshold) {
+                long upperBound = i >= BUCKET_NUM - 2 ? Long.MAX_VALUE : (1L << (i + 1)) - 1;
+                return Math.min(upperBound, max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * 以毫秒为单位的摘要，记录的值需为纳秒
+     *
+     * @return 摘要
+     */
+    public String toMillisString() {
+        return String.format("mean=%.3fms, p50=%.3fms, p99=%.3fms, max=%.3fms",
+                getMean() / TimeUnit.MILLISECONDS.toNanos(1), toMillis(getPercentile(50)),
+                toMillis(getPercentile(99)), toMillis(getMax()));
+    }
+
+    private static double toMillis(long nanos) {
+        return (double) nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
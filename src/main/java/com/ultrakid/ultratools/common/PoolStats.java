@@ -0,0 +1,86 @@
+package com.ultrakid.ultratools.common;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 线程池运行状态快照
+ *
+ * @author ultrakid
+ * @version 1.0
+ * @date 2022/01/18 16:40
+ */
+public class PoolStats {
+
+    private final String poolName;
+    private final int poolSize;
+    private final int activeCount;
+    private final int largestPoolSize;
+    private final int queueSize;
+    private final int queueRemainingCapacity;
+    private final long completedTaskCount;
+
+    public PoolStats(String poolName, int poolSize, int activeCount, int largestPoolSize,
+                     int queueSize, int queueRemainingCapacity, long completedTaskCount) {
+        this.poolName = poolName;
+        this.poolSize = poolSize;
+        this.activeCount = activeCount;
+        this.largestPoolSize = largestPoolSize;
+        this.queueSize = queueSize;
+        this.queueRemainingCapacity = queueRemainingCapacity;
+        this.completedTaskCount = completedTaskCount;
+    }
+
+    /**
+     * 从线程池获取状态快照，各项数据是近似值
+     *
+     * @param poolName 线程池名称
+     * @param executor 线程池
+     * @return 状态快照
+     */
+    public static PoolStats of(String poolName, ThreadPoolExecutor executor) {
+        return new PoolStats(poolName, executor.getPoolSize(), executor.getActiveCount(),
+                executor.getLargestPoolSize(), executor.getQueue().size(),
+                executor.getQueue().remainingCapacity(), executor.getCompletedTaskCount());
+    }
+
+    public String getPoolName() {
+        return poolName;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    public int getLargestPoolSize() {
+        return largestPoolSize;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    public int getQueueRemainingCapacity() {
+        return queueRemainingCapacity;
+    }
+
+    public long getCompletedTaskCount() {
+        return completedTaskCount;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStats{" +
+                "poolName='" + poolName + '\'' +
+                ", poolSize=" + poolSize +
+                ", activeCount=" + activeCount +
+                ", largestPoolSize=" + largestPoolSize +
+                ", queueSize=" + queueSize +
+                ", queueRemainingCapacity=" + queueRemainingCapacity +
+                ", completedTaskCount=" + completedTaskCount +
+                '}';
+    }
+}
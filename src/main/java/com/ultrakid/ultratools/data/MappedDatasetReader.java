@@ -0,0 +1,169 @@
+package com.ultrakid.ultratools.data;
+
+import com.ultrakid.ultratools.exception.UltraRuntimeException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.InvalidParameterException;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * 数据集文件读取，读取{@link MappedDatasetWriter}写入的文件
+ * 文件以只读方式映射到内存，读取时按需解码，不复制数据，可以被多个线程同时读取
+ * 通过{@link #asList()}可以直接作为{@link com.ultrakid.ultratools.batch.operator.ListBatchOperator}的数据源
+ *
+ * @author ultrakid
+ * @version 1.0
+ * @date 2022/02/21 14:42
+ */
+public class MappedDatasetReader<T> implements Closeable {
+
+    /**
+     * 单个映射段的目标大小
+     */
+    private static final int SEGMENT_BYTES = 1 << 30;
+
+    private final FileChannel channel;
+    private final RecordCodec<T> codec;
+    private final int recordSize;
+    private final long count;
+    private final long seed;
+    private final int recordsPerSegment;
+    private final MappedByteBuffer[] segments;
+
+    private MappedDatasetReader(FileChannel channel, RecordCodec<T> codec) throws IOException {
+        this.channel = channel;
+        this.codec = codec;
+        ByteBuffer header = ByteBuffer.allocate(MappedDatasetWriter.HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                break;
+            }
+        }
+        MappedDatasetWriter.flip(header);
+        if (header.remaining() < MappedDatasetWriter.HEADER_SIZE || header.getInt() != MappedDatasetWriter.MAGIC) {
+            throw new InvalidParameterException("Not a dataset file or the file is incomplete");
+        }
+        int version = header.getInt();
+        if (version != MappedDatasetWriter.VERSION) {
+            throw new InvalidParameterException("Unsupported dataset version " + version);
+        }
+        recordSize = header.getInt();
+        header.getInt();
+        count = header.getLong();
+        seed = header.getLong();
+        if (recordSize != codec.recordSize()) {
+            throw new InvalidParameterException("Record size of codec is " + codec.recordSize() +
+                    ", but the file is " + recordSize);
+        }
+        recordsPerSegment = Math.max(1, SEGMENT_BYTES / recordSize);
+        int segmentNum = (int) ((count + recordsPerSegment - 1) / recordsPerSegment);
+        segments = new MappedByteBuffer[segmentNum];
+        for (int i = 0; i < segmentNum; i++) {
+            long firstRecord = (long) i * recordsPerSegment;
+            long segmentRecords = Math.min(recordsPerSegment, count - firstRecord);
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                    MappedDatasetWriter.HEADER_SIZE + firstRecord * recordSize, segmentRecords * recordSize);
+        }
+    }
+
+    /**
+     * 打开数据集文件
+     *
+     * @param file  数据集文件
+     * @param codec 记录解码器，记录大小需要与文件一致
+     * @param <T>   记录类型
+     * @return 读取器
+     */
+    public static <T> MappedDatasetReader<T> open(Path file, RecordCodec<T> codec) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            return new MappedDatasetReader<>(channel, codec);
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException closeException) {
+                    e.addSuppressed(closeException);
+                }
+            }
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            throw new UltraRuntimeException("Failed to open dataset file " + file, e);
+        }
+    }
+
+    /**
+     * 读取一条记录
+     *
+     * @param index 记录下标
+     * @return 记录
+     */
+    public T get(long index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+        }
+        return codec.decode(segments[(int) (index / recordsPerSegment)],
+                (int) (index % recordsPerSegment) * recordSize);
+    }
+
+    /**
+     * 以列表视图访问全部记录，get时才解码，subList不复制数据
+     *
+     * @return 只读列表
+     */
+    public List<T> asList() {
+        if (count > Integer.MAX_VALUE) {
+            throw new UnsupportedOperationException("Record count " + count + " exceeds the max size of a list");
+        }
+        return new RecordList();
+    }
+
+    /**
+     * 记录数
+     *
+     * @return 记录数
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * 生成文件时使用的随机数种子
+     *
+     * @return 种子
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * 关闭文件，已经映射的内存在被GC回收后才会释放
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private class RecordList extends AbstractList<T> implements RandomAccess {
+
+        @Override
+        public T get(int index) {
+            return MappedDatasetReader.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return (int) count;
+        }
+    }
+}
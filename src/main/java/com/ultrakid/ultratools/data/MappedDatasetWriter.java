@@ -0,0 +1,120 @@
+package com.ultrakid.ultratools.data;
+
+import com.ultrakid.ultratools.exception.UltraRuntimeException;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.security.InvalidParameterException;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * 随机数据集文件写入工具
+ * 按{@link RandomUtils#generateList(int, long, RandomUtils.SplittableGenerator)}相同的分块方式并行生成，
+ * 每个线程直接编码到内存映射文件中互不重叠的区域，不需要先在内存中生成完整的列表，
+ * 同一个种子生成的文件内容相同，与并行的线程数无关
+ * 文件格式为{@value #HEADER_SIZE}字节的文件头加上连续的定长记录，使用{@link MappedDatasetReader}读取
+ *
+ * @author ultrakid
+ * @version 1.0
+ * @date 2022/02/21 11:20
+ */
+public final class MappedDatasetWriter {
+
+    /**
+     * 文件头魔数"UTDS"
+     */
+    static final int MAGIC = 0x55544453;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 32;
+
+    /**
+     * 单次映射区域的目标大小
+     */
+    private static final long REGION_BYTES = 64L << 20;
+
+    private MappedDatasetWriter() {
+
+    }
+
+    /**
+     * 生成数据集并写入文件，已存在的文件会被覆盖
+     *
+     * @param file      目标文件
+     * @param count     记录数
+     * @param seed      随机数种子
+     * @param generator 可指定随机源的生成器
+     * @param codec     记录编码器
+     * @param <T>       记录类型
+     */
+    public static <T> void write(Path file, long count, long seed, RandomUtils.SplittableGenerator<T> generator,
+                                 RecordCodec<T> codec) {
+        if (count < 0) {
+            throw new InvalidParameterException("Record count should not be negative, but actual value is " + count);
+        }
+        int recordSize = codec.recordSize();
+        long chunkBytes = (long) RandomUtils.CHUNK_SIZE * recordSize;
+        if (recordSize <= 0 || chunkBytes > Integer.MAX_VALUE) {
+            throw new InvalidParameterException("Record size should be in (0, " +
+                    Integer.MAX_VALUE / RandomUtils.CHUNK_SIZE + "], but actual value is " + recordSize);
+        }
+        long chunkNum = (count + RandomUtils.CHUNK_SIZE - 1) / RandomUtils.CHUNK_SIZE;
+        if (chunkNum > Integer.MAX_VALUE) {
+            throw new InvalidParameterException("Record count is too large: " + count);
+        }
+        // 一个映射区域包含整数个分块
+        int chunksPerRegion = (int) Math.max(1L, REGION_BYTES / chunkBytes);
+        int regionNum = (int) ((chunkNum + chunksPerRegion - 1) / chunksPerRegion);
+        SplittableRandom[] randoms = RandomUtils.splitRandoms(seed, (int) chunkNum);
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "rw")) {
+            randomAccessFile.setLength(0L);
+            randomAccessFile.setLength(HEADER_SIZE + count * recordSize);
+            FileChannel channel = randomAccessFile.getChannel();
+            IntStream.range(0, regionNum).parallel().forEach(region -> {
+                long firstChunk = (long) region * chunksPerRegion;
+                long firstRecord = firstChunk * RandomUtils.CHUNK_SIZE;
+                long regionRecords = Math.min((long) chunksPerRegion * RandomUtils.CHUNK_SIZE, count - firstRecord);
+                MappedByteBuffer buffer = map(channel, HEADER_SIZE + firstRecord * recordSize,
+                        regionRecords * recordSize);
+                for (int i = 0; i < regionRecords; i++) {
+                    SplittableRandom random = randoms[(int) (firstChunk + i / RandomUtils.CHUNK_SIZE)];
+                    codec.encode(generator.generate(random), buffer, i * recordSize);
+                }
+                buffer.force();
+            });
+            // 数据全部写完后再写文件头，文件头不完整说明写入中断
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(recordSize).putInt(0).putLong(count).putLong(seed);
+            flip(header);
+            channel.write(header, 0L);
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UltraRuntimeException("Failed to write dataset file " + file, e);
+        }
+    }
+
+    /**
+     * 翻转缓冲区准备读取
+     * 转为Buffer调用，避免在JDK 9+上编译后引用ByteBuffer.flip()的协变返回值，导致JDK 8运行时NoSuchMethodError
+     *
+     * @param buffer 缓冲区
+     */
+    static void flip(ByteBuffer buffer) {
+        ((Buffer) buffer).flip();
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long position, long size) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+        } catch (IOException e) {
+            throw new UltraRuntimeException("Failed to map dataset region at " + position, e);
+        }
+    }
+}
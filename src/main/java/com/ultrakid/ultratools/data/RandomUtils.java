@@ -3,8 +3,19 @@ package com.ultrakid.ultratools.data;
 import cn.hutool.core.collection.CollectionUtil;
 import cn.hutool.core.util.RandomUtil;
 
+import java.security.InvalidParameterException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * 随机工具类
@@ -15,6 +26,11 @@ import java.util.List;
  */
 public final class RandomUtils {
 
+    /**
+     * 并行生成时每个分块的大小，分块和随机数种子一一对应，与线程数无关，保证同一个种子的生成结果可复现
+     */
+    static final int CHUNK_SIZE = 1 << 14;
+
     private RandomUtils() {
 
     }
@@ -50,7 +66,7 @@ public final class RandomUtils {
      * @return 生成结果
      */
     public static <T> List<T> generateList(int num, RandomGenerator<T> generator) {
-        List<T> resList = new ArrayList<>();
+        List<T> resList = new ArrayList<>(Math.max(num, 0));
         if (num <= 0) {
             return resList;
         }
@@ -70,7 +86,7 @@ public final class RandomUtils {
         if (candidates == null || candidates.length == 0) {
             return null;
         }
-        int index = RandomUtil.randomInt(candidates.length);
+        int index = ThreadLocalRandom.current().nextInt(candidates.length);
         return candidates[index];
     }
 
@@ -84,10 +100,264 @@ public final class RandomUtils {
         if (CollectionUtil.isEmpty(candidates)) {
             return null;
         }
-        int index = RandomUtil.randomInt(candidates.size());
+        int index = ThreadLocalRandom.current().nextInt(candidates.size());
         return candidates.get(index);
     }
 
+    /**
+     * 从列表中无放回地随机抽取k个，只占用O(k)的额外内存，不复制原列表
+     * 支持随机访问的列表使用部分Fisher-Yates洗牌，用Map记录被交换过的下标；否则退化为蓄水池抽样，抽样结果再打乱顺序
+     *
+     * @param candidates 候选数据列表
+     * @param k          抽取数量，超过列表大小时返回全部数据的随机排列
+     * @param <T>        数据类型
+     * @return 抽样结果，顺序随机
+     */
+    public static <T> List<T> sample(List<T> candidates, int k) {
+        if (CollectionUtil.isEmpty(candidates) || k <= 0) {
+            return new ArrayList<>();
+        }
+        int size = candidates.size();
+        int sampleSize = Math.min(k, size);
+        if (!(candidates instanceof RandomAccess)) {
+            // 蓄水池中的数据保持原始顺序，需要再打乱一次
+            List<T> resList = reservoirSample(candidates.iterator(), sampleSize);
+            Collections.shuffle(resList, ThreadLocalRandom.current());
+            return resList;
+        }
+        List<T> resList = new ArrayList<>(sampleSize);
+        Map<Integer, Integer> swapped = new HashMap<>(sampleSize * 2);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < sampleSize; i++) {
+            int j = i + random.nextInt(size - i);
+            int valueAtJ = swapped.getOrDefault(j, j);
+            swapped.put(j, swapped.getOrDefault(i, i));
+            resList.add(candidates.get(valueAtJ));
+        }
+        return resList;
+    }
+
+    /**
+     * 对迭代器做蓄水池抽样，只遍历一次，适用于无法全部加载到内存的数据
+     *
+     * @param iterator 数据迭代器
+     * @param k        抽取数量
+     * @param <T>      数据类型
+     * @return 抽样结果
+     */
+    public static <T> List<T> reservoirSample(Iterator<? extends T> iterator, int k) {
+        ReservoirSampler<T> sampler = new ReservoirSampler<>(k);
+        while (iterator.hasNext()) {
+            sampler.add(iterator.next());
+        }
+        return sampler.getSamples();
+    }
+
+    /**
+     * 对流做蓄水池抽样，串行遍历
+     *
+     * @param stream 数据流
+     * @param k      抽取数量
+     * @param <T>    数据类型
+     * @return 抽样结果
+     */
+    public static <T> List<T> reservoirSample(Stream<? extends T> stream, int k) {
+        return reservoirSample(stream.sequential().iterator(), k);
+    }
+
+    /**
+     * 对流做并行蓄水池抽样，每个线程独立抽样后合并
+     *
+     * @param stream 数据流
+     * @param k      抽取数量
+     * @param <T>    数据类型
+     * @return 抽样结果
+     */
+    public static <T> List<T> parallelReservoirSample(Stream<? extends T> stream, int k) {
+        return stream.parallel().collect(ReservoirSampler.collector(k));
+    }
+
+    /**
+     * 使用指定种子并行生成指定数量的数据，同一个种子的生成结果相同，与并行的线程数无关
+     *
+     * @param num       需要生成的数组长度
+     * @param seed      随机数种子
+     * @param generator 可指定随机源的生成器，生成时只能使用传入的随机源
+     * @param <T>       生成的数据类型
+     * @return 生成结果，直接包装生成用的数组而不再复制，为固定长度的列表，不支持增删元素
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> generateList(int num, long seed, SplittableGenerator<T> generator) {
+        if (num <= 0) {
+            return Collections.emptyList();
+        }
+        Object[] resArray = new Object[num];
+        parallelChunks(num, seed, (random, start, end) -> {
+            for (int i = start; i < end; i++) {
+                resArray[i] = generator.generate(random);
+            }
+        });
+        // 数据量可能达到千万级，不复制数组，避免峰值内存翻倍
+        return (List<T>) Arrays.asList(resArray);
+    }
+
+    /**
+     * 使用指定种子并行生成int数组，取值范围 [origin, bound)
+     *
+     * @param num    数组长度
+     * @param seed   随机数种子
+     * @param origin 最小值
+     * @param bound  上界，不包含
+     * @return 生成结果
+     */
+    public static int[] randomInts(int num, long seed, int origin, int bound) {
+        int[] array = new int[Math.max(num, 0)];
+        fillInts(array, seed, origin, bound);
+        return array;
+    }
+
+    /**
+     * 使用指定种子并行填充int数组，取值范围 [origin, bound)
+     *
+     * @param array  待填充数组
+     * @param seed   随机数种子
+     * @param origin 最小值
+     * @param bound  上界，不包含
+     */
+    public static void fillInts(int[] array, long seed, int origin, int bound) {
+        checkBound(origin < bound, origin, bound);
+        parallelChunks(array.length, seed, (random, start, end) -> {
+            for (int i = start; i < end; i++) {
+                array[i] = random.nextInt(origin, bound);
+            }
+        });
+    }
+
+    /**
+     * 使用指定种子并行生成long数组，取值范围 [origin, bound)
+     *
+     * @param num    数组长度
+     * @param seed   随机数种子
+     * @param origin 最小值
+     * @param bound  上界，不包含
+     * @return 生成结果
+     */
+    public static long[] randomLongs(int num, long seed, long origin, long bound) {
+        long[] array = new long[Math.max(num, 0)];
+        fillLongs(array, seed, origin, bound);
+        return array;
+    }
+
+    /**
+     * 使用指定种子并行填充long数组，取值范围 [origin, bound)
+     *
+     * @param array  待填充数组
+     * @param seed   随机数种子
+     * @param origin 最小值
+     * @param bound  上界，不包含
+     */
+    public static void fillLongs(long[] array, long seed, long origin, long bound) {
+        checkBound(origin < bound, origin, bound);
+        parallelChunks(array.length, seed, (random, start, end) -> {
+            for (int i = start; i < end; i++) {
+                array[i] = random.nextLong(origin, bound);
+            }
+        });
+    }
+
+    /**
+     * 使用指定种子并行生成double数组，取值范围 [origin, bound)
+     *
+     * @param num    数组长度
+     * @param seed   随机数种子
+     * @param origin 最小值
+     * @param bound  上界，不包含
+     * @return 生成结果
+     */
+    public static double[] randomDoubles(int num, long seed, double origin, double bound) {
+        double[] array = new double[Math.max(num, 0)];
+        fillDoubles(array, seed, origin, bound);
+        return array;
+    }
+
+    /**
+     * 使用指定种子并行填充double数组，取值范围 [origin, bound)
+     *
+     * @param array  待填充数组
+     * @param seed   随机数种子
+     * @param origin 最小值
+     * @param bound  上界，不包含
+     */
+    public static void fillDoubles(double[] array, long seed, double origin, double bound) {
+        checkBound(origin < bound, origin, bound);
+        parallelChunks(array.length, seed, (random, start, end) -> {
+            for (int i = start; i < end; i++) {
+                array[i] = random.nextDouble(origin, bound);
+            }
+        });
+    }
+
+    /**
+     * 按种子依次分裂出每个分块的随机源
+     *
+     * @param seed     随机数种子
+     * @param chunkNum 分块数
+     * @return 随机源数组
+     */
+    static SplittableRandom[] splitRandoms(long seed, int chunkNum) {
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[chunkNum];
+        for (int i = 0; i < chunkNum; i++) {
+            randoms[i] = root.split();
+        }
+        return randoms;
+    }
+
+    /**
+     * 将 [0, length) 按固定大小分块并行执行，每个分块使用独立的随机源
+     *
+     * @param length 总长度
+     * @param seed   随机数种子
+     * @param task   分块任务
+     */
+    private static void parallelChunks(int length, long seed, ChunkTask task) {
+        if (length <= 0) {
+            return;
+        }
+        int chunkNum = (length - 1) / CHUNK_SIZE + 1;
+        SplittableRandom[] randoms = splitRandoms(seed, chunkNum);
+        IntStream chunkStream = IntStream.range(0, chunkNum);
+        if (chunkNum > 1) {
+            chunkStream = chunkStream.parallel();
+        }
+        chunkStream.forEach(chunk -> {
+            int start = chunk * CHUNK_SIZE;
+            task.run(randoms[chunk], start, Math.min(start + CHUNK_SIZE, length));
+        });
+    }
+
+    private static void checkBound(boolean valid, Object origin, Object bound) {
+        if (!valid) {
+            throw new InvalidParameterException("Bound should be greater than origin, but actual origin is "
+                    + origin + " and bound is " + bound);
+        }
+    }
+
+    /**
+     * 分块任务
+     */
+    private interface ChunkTask {
+
+        /**
+         * 处理 [start, end) 范围
+         *
+         * @param random 分块的随机源
+         * @param start  起始，包含
+         * @param end    结束，不包含
+         */
+        void run(SplittableRandom random, int start, int end);
+    }
+
     /**
      * 随机对象生成器
      *
@@ -105,4 +375,23 @@ public final class RandomUtils {
         T generate();
 
     }
+
+    /**
+     * 可指定随机源的随机对象生成器，用于可复现的并行生成
+     *
+     * @author ultrakid
+     * @version 1.0
+     * @date 2022/02/08 10:26
+     */
+    public interface SplittableGenerator<T> {
+
+        /**
+         * 生成函数
+         *
+         * @param random 随机源，不是线程安全的，只能在本次调用中使用
+         * @return 生成结果
+         */
+        T generate(SplittableRandom random);
+
+    }
 }
@@ -0,0 +1,39 @@
+package com.ultrakid.ultratools.data;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 定长记录的二进制编解码器
+ * 编解码都使用ByteBuffer的绝对位置读写，不修改position，因此同一个buffer可以被多个线程同时读取
+ *
+ * @author ultrakid
+ * @version 1.0
+ * @date 2022/02/21 10:05
+ */
+public interface RecordCodec<T> {
+
+    /**
+     * 单条记录的字节数，所有记录相同
+     *
+     * @return 字节数
+     */
+    int recordSize();
+
+    /**
+     * 将记录写入buffer，从offset开始最多写{@link #recordSize()}个字节
+     *
+     * @param record 记录
+     * @param buffer 目标buffer
+     * @param offset 起始位置
+     */
+    void encode(T record, ByteBuffer buffer, int offset);
+
+    /**
+     * 从buffer的offset位置读取一条记录
+     *
+     * @param buffer 源buffer
+     * @param offset 起始位置
+     * @return 记录
+     */
+    T decode(ByteBuffer buffer, int offset);
+}
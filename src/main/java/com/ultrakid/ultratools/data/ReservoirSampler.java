@@ -0,0 +1,166 @@
+package com.ultrakid.ultratools.data;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collector;
+
+/**
+ * 蓄水池抽样，从未知长度的数据流中等概率抽取k个样本，只占用O(k)内存
+ * 使用Algorithm L，蓄水池满后按几何分布直接计算下一个被替换的位置，跳过的数据不需要生成随机数
+ * 不是线程安全的，多线程抽样时每个线程使用独立的实例，最后通过{@link #merge}合并
+ *
+ * @author ultrakid
+ * @version 1.0
+ * @date 2022/02/15 11:47
+ */
+public class ReservoirSampler<T> {
+
+    private final int capacity;
+    private final Object[] samples;
+    private int size = 0;
+    private long seen = 0L;
+    private double w = 0D;
+    private long nextIndex = 0L;
+    private boolean merged = false;
+
+    /**
+     * 构造方法
+     *
+     * @param capacity 样本数
+     */
+    public ReservoirSampler(int capacity) {
+        if (capacity <= 0) {
+            throw new InvalidParameterException("Sample size should be greater than 0, but actual value is "
+                    + capacity);
+        }
+        this.capacity = capacity;
+        this.samples = new Object[capacity];
+    }
+
+    /**
+     * 并行流使用的收集器，每个线程独立抽样后合并
+     *
+     * @param capacity 样本数
+     * @param <T>      数据类型
+     * @return 收集器
+     */
+    public static <T> Collector<T, ?, List<T>> collector(int capacity) {
+        return Collector.of(() -> new ReservoirSampler<T>(capacity), ReservoirSampler::add,
+                ReservoirSampler::merge, ReservoirSampler::getSamples);
+    }
+
+    /**
+     * 加入一个数据
+     *
+     * @param item 数据
+     */
+    public void add(T item) {
+        if (size < capacity) {
+            samples[size++] = item;
+            seen++;
+            if (size == capacity) {
+                w = Math.exp(Math.log(nextUniform()) / capacity);
+                nextIndex = seen - 1 + nextSkip();
+            }
+            return;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (merged) {
+            // 合并后的状态无法继续Algorithm L，退化为Algorithm R
+            long index = random.nextLong(seen + 1);
+            if (index < capacity) {
+                samples[(int) index] = item;
+            }
+        } else if (seen == nextIndex) {
+            samples[random.nextInt(capacity)] = item;
+            w *= Math.exp(Math.log(nextUniform()) / capacity);
+            nextIndex += nextSkip();
+        }
+        seen++;
+    }
+
+    /**
+     * 合并另一个抽样结果，合并后的样本等价于从两边全部数据中抽样
+     * 合并只用于汇总各线程已经完成的抽样，合并后继续加入数据需要每条数据生成一次随机数
+     *
+     * @param other 另一个抽样器，样本数需要相同
+     * @return 当前抽样器
+     */
+    @SuppressWarnings("unchecked")
+    public ReservoirSampler<T> merge(ReservoirSampler<T> other) {
+        if (other.capacity != capacity) {
+            throw new InvalidParameterException("Cannot merge samplers with different sample size " + capacity +
+                    " and " + other.capacity);
+        }
+        Object[] left = Arrays.copyOf(samples, size);
+        Object[] right = Arrays.copyOf(other.samples, other.size);
+        int leftSize = left.length;
+        int rightSize = right.length;
+        long leftSeen = seen;
+        long rightSeen = other.seen;
+        int mergedSize = (int) Math.min(capacity, leftSeen + rightSeen);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // 按两边剩余的数据量比例逐个决定从哪边取，等价于对合并后的全部数据做无放回抽样
+        for (int i = 0; i < mergedSize; i++) {
+            if (random.nextLong(leftSeen + rightSeen) < leftSeen) {
+                int index = random.nextInt(leftSize);
+                samples[i] = left[index];
+                left[index] = left[--leftSize];
+                leftSeen--;
+            } else {
+                int index = random.nextInt(rightSize);
+                samples[i] = right[index];
+                right[index] = right[--rightSize];
+                rightSeen--;
+            }
+        }
+        size = mergedSize;
+        seen += other.seen;
+        merged = true;
+        return this;
+    }
+
+    /**
+     * 获取当前样本
+     *
+     * @return 样本列表
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> getSamples() {
+        List<T> resList = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            resList.add((T) samples[i]);
+        }
+        return resList;
+    }
+
+    /**
+     * 已经加入的数据量
+     *
+     * @return 数据量
+     */
+    public long getSeen() {
+        return seen;
+    }
+
+    /**
+     * 计算到下一个被替换数据的距离
+     *
+     * @return 距离，至少为1
+     */
+    private long nextSkip() {
+        return (long) Math.floor(Math.log(nextUniform()) / Math.log(1D - w)) + 1;
+    }
+
+    /**
+     * 生成 (0, 1] 的随机数，避免对0取对数
+     *
+     * @return 随机数
+     */
+    private static double nextUniform() {
+        return 1D - ThreadLocalRandom.current().nextDouble();
+    }
+}
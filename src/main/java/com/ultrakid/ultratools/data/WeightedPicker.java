@@ -0,0 +1,224 @@
+package com.ultrakid.ultratools.data;
+
+import java.security.InvalidParameterException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 按权重随机挑选，基于Vose的别名方法
+ * 构造时O(n)建表，之后每次挑选O(1)，挑选时不加锁也不分配对象，可以在多线程中共享
+ *
+ * @author ultrakid
+ * @version 1.0
+ * @date 2022/02/10 16:18
+ */
+public class WeightedPicker<T> {
+
+    private final Object[] items;
+    private final double[] probs;
+    private final int[] aliases;
+
+    /**
+     * 构造方法
+     *
+     * @param items   候选数据
+     * @param weights 候选数据对应的权重，需非负且总和大于0
+     */
+    public WeightedPicker(List<T> items, double[] weights) {
+        int size = items.size();
+        if (size == 0 || size != weights.length) {
+            throw new InvalidParameterException("Items should not be empty and have the same size as weights, " +
+                    "but actual items size is " + size + " and weights size is " + weights.length);
+        }
+        double sum = 0D;
+        for (double weight : weights) {
+            if (!(weight >= 0D) || Double.isInfinite(weight)) {
+                throw new InvalidParameterException("Weight should be a non-negative finite number, " +
+                        "but actual value is " + weight);
+            }
+            sum += weight;
+        }
+        if (sum <= 0D) {
+            throw new InvalidParameterException("Sum of weights should be greater than 0");
+        }
+        this.items = items.toArray();
+        this.probs = new double[size];
+        this.aliases = new int[size];
+        // 按平均值缩放后分为小于1和不小于1的两组，用数组模拟栈避免装箱
+        double[] scaled = new double[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallNum = 0;
+        int largeNum = 0;
+        for (int i = 0; i < size; i++) {
+            scaled[i] = weights[i] * size / sum;
+            if (scaled[i] < 1D) {
+                small[smallNum++] = i;
+            } else {
+                large[largeNum++] = i;
+            }
+        }
+        while (smallNum > 0 && largeNum > 0) {
+            int less = small[--smallNum];
+            int more = large[--largeNum];
+            probs[less] = scaled[less];
+            aliases[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1D;
+            if (scaled[more] < 1D) {
+                small[smallNum++] = more;
+            } else {
+                large[largeNum++] = more;
+            }
+        }
+        // 剩余的概率在浮点误差范围内都是1
+        while (largeNum > 0) {
+            probs[large[--largeNum]] = 1D;
+        }
+        while (smallNum > 0) {
+            probs[small[--smallNum]] = 1D;
+        }
+    }
+
+    /**
+     * 按Map构造，key为候选数据，value为权重
+     *
+     * @param weightMap 候选数据和权重
+     * @param <T>       数据类型
+     * @return 挑选器
+     */
+    public static <T> WeightedPicker<T> of(Map<T, ? extends Number> weightMap) {
+        List<T> items = new ArrayList<>(weightMap.size());
+        double[] weights = new double[weightMap.size()];
+        int index = 0;
+        for (Map.Entry<T, ? extends Number> entry : weightMap.entrySet()) {
+            items.add(entry.getKey());
+            weights[index++] = entry.getValue().doubleValue();
+        }
+        return new WeightedPicker<>(items, weights);
+    }
+
+    /**
+     * 均匀分布
+     *
+     * @param items 候选数据
+     * @param <T>   数据类型
+     * @return 挑选器
+     */
+    public static <T> WeightedPicker<T> uniform(List<T> items) {
+        double[] weights = new double[items.size()];
+        Arrays.fill(weights, 1D);
+        return new WeightedPicker<>(items, weights);
+    }
+
+    /**
+     * Zipf分布，第i个(从1开始)候选数据的权重为 1 / i^exponent，越靠前越热门
+     *
+     * @param items    按热度从高到低排列的候选数据
+     * @param exponent 分布指数，越大越集中，常用值为1
+     * @param <T>      数据类型
+     * @return 挑选器
+     */
+    public static <T> WeightedPicker<T> zipf(List<T> items, double exponent) {
+        double[] weights = new double[items.size()];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = 1D / Math.pow(i + 1, exponent);
+        }
+        return new WeightedPicker<>(items, weights);
+    }
+
+    /**
+     * 在 [0, n) 上的Zipf分布，0最热门，配合{@link #pickIndex()}使用可避免装箱
+     *
+     * @param n        取值个数
+     * @param exponent 分布指数
+     * @return 挑选器
+     */
+    public static WeightedPicker<Integer> zipf(int n, double exponent) {
+        return zipf(range(n), exponent);
+    }
+
+    /**
+     * 几何分布，第i个(从0开始)候选数据的权重为 (1-p)^i * p
+     *
+     * @param items 候选数据
+     * @param p     成功概率，取值范围(0, 1]
+     * @param <T>   数据类型
+     * @return 挑选器
+     */
+    public static <T> WeightedPicker<T> geometric(List<T> items, double p) {
+        if (!(p > 0D && p <= 1D)) {
+            throw new InvalidParameterException("Probability should be in (0, 1], but actual value is " + p);
+        }
+        double[] weights = new double[items.size()];
+        double weight = p;
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = weight;
+            weight *= 1D - p;
+        }
+        return new WeightedPicker<>(items, weights);
+    }
+
+    /**
+     * 随机挑选一个
+     *
+     * @return 挑选结果
+     */
+    @SuppressWarnings("unchecked")
+    public T pick() {
+        return (T) items[pickIndex()];
+    }
+
+    /**
+     * 使用指定随机源挑选一个，用于可复现的生成
+     *
+     * @param random 随机源
+     * @return 挑选结果
+     */
+    @SuppressWarnings("unchecked")
+    public T pick(SplittableRandom random) {
+        return (T) items[pickIndex(random)];
+    }
+
+    /**
+     * 随机挑选一个，返回下标
+     *
+     * @return 挑选结果的下标
+     */
+    public int pickIndex() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int column = random.nextInt(probs.length);
+        return random.nextDouble() < probs[column] ? column : aliases[column];
+    }
+
+    /**
+     * 使用指定随机源挑选一个，返回下标
+     *
+     * @param random 随机源
+     * @return 挑选结果的下标
+     */
+    public int pickIndex(SplittableRandom random) {
+        int column = random.nextInt(probs.length);
+        return random.nextDouble() < probs[column] ? column : aliases[column];
+    }
+
+    /**
+     * 候选数据个数
+     *
+     * @return 个数
+     */
+    public int size() {
+        return items.length;
+    }
+
+    private static List<Integer> range(int n) {
+        List<Integer> list = new ArrayList<>(Math.max(n, 0));
+        for (int i = 0; i < n; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+}
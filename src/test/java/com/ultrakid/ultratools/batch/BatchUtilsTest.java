@@ -4,22 +4,39 @@ package com.ultrakid.ultratools.batch;
 import cn.hutool.core.util.RandomUtil;
 import cn.hutool.log.Log;
 import cn.hutool.log.LogFactory;
+import com.ultrakid.ultratools.batch.checkpoint.LocalFileCheckpointStore;
+import com.ultrakid.ultratools.batch.metrics.BatchJobStats;
+import com.ultrakid.ultratools.batch.metrics.LoggingBatchMetrics;
 import com.ultrakid.ultratools.batch.operator.BatchOperator;
 import com.ultrakid.ultratools.batch.operator.ListBatchOperator;
 import com.ultrakid.ultratools.common.DefaultThreadFactory;
+import com.ultrakid.ultratools.common.PoolStats;
+import com.ultrakid.ultratools.common.VirtualThreads;
 import com.ultrakid.ultratools.data.RandomUtils;
 import com.ultrakid.ultratools.exception.UltraRuntimeException;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 /**
@@ -125,4 +142,391 @@ class BatchUtilsTest {
         assertThrows(UltraRuntimeException.class,
                 () -> BatchUtils.batchParallelOperate(operator, batchSize, executorService, false));
     }
-}
\ No newline at end of file
+
+    /**
+     * 按key分片的多线程批量操作单元测试，同一个key的数据需要保持原始顺序
+     *
+     * @throws InterruptedException 线程被打断时的异常
+     */
+    @Test
+    void batchShardedOperate() throws InterruptedException {
+        int keyNum = 37;
+        List<int[]> dataList = new ArrayList<>(1000);
+        for (int i = 0; i < 1000; i++) {
+            dataList.add(new int[]{i % keyNum, i});
+        }
+        Map<Integer, List<Integer>> operatedRes = new ConcurrentHashMap<>();
+        BatchOperator<List<int[]>> operator = new ListBatchOperator<int[]>(dataList) {
+            @Override
+            public int operate(List<int[]> data) {
+                for (int[] event : data) {
+                    operatedRes.computeIfAbsent(event[0], key -> new CopyOnWriteArrayList<>()).add(event[1]);
+                }
+                return data.size();
+            }
+        };
+        long res = BatchUtils.batchShardedOperate(operator, event -> event[0], 4, 10, executorService, false);
+        assertEquals(dataList.size(), res);
+        assertEquals(keyNum, operatedRes.size());
+        operatedRes.forEach((key, seqList) -> {
+            for (int i = 1; i < seqList.size(); i++) {
+                assertTrue(seqList.get(i - 1) < seqList.get(i), "Out of order for key " + key);
+            }
+        });
+    }
+
+    /**
+     * 按key分片的并发批量操作单元测试，分片内后续批次异常时，已完成批次的成功数仍然计入返回值
+     *
+     * @throws InterruptedException 线程被打断时的异常
+     */
+    @Test
+    void batchShardedOperateWithException() throws InterruptedException {
+        List<Integer> dataList = new ArrayList<>(100);
+        for (int i = 0; i < 100; i++) {
+            dataList.add(i);
+        }
+        AtomicInteger operatedCnt = new AtomicInteger(0);
+        BatchOperator<List<Integer>> operator = new ListBatchOperator<Integer>(dataList) {
+            @Override
+            public int operate(List<Integer> data) {
+                if (data.get(0) == 90) {
+                    throw new IllegalStateException("Last batch failed");
+                }
+                operatedCnt.addAndGet(data.size());
+                return data.size();
+            }
+        };
+        // 所有数据路由到同一个分片
+        long res = BatchUtils.batchShardedOperate(operator, element -> 0, 1, 10, executorService, true);
+        assertEquals(90, operatedCnt.get());
+        assertEquals(90L, res);
+        assertThrows(UltraRuntimeException.class,
+                () -> BatchUtils.batchShardedOperate(operator, element -> 0, 1, 10, executorService, false));
+    }
+
+    /**
+     * 按权重分批的批量操作单元测试，每批权重和并发中的总权重都不能超过上限
+     *
+     * @throws InterruptedException 线程被打断时的异常
+     */
+    @Test
+    void batchWeightedOperate() throws InterruptedException {
+        List<Integer> weightList = RandomUtils.generateList(1000, () -> RandomUtil.randomInt(1, 300));
+        long maxBatchWeight = 1000L;
+        int maxBatchSize = 8;
+        List<Integer> operatedList = new ArrayList<>();
+        BatchOperator<List<Integer>> operator = new ListBatchOperator<Integer>(weightList) {
+            @Override
+            public int operate(List<Integer> data) {
+                assertTrue(data.size() <= maxBatchSize);
+                assertTrue(data.stream().mapToLong(Integer::longValue).sum() <= maxBatchWeight);
+                operatedList.addAll(data);
+                return data.size();
+            }
+        };
+        long res = BatchUtils.batchOperate(operator, Integer::longValue, maxBatchWeight, maxBatchSize);
+        assertEquals(weightList.size(), res);
+        assertEquals(weightList, operatedList);
+
+        long maxInFlightWeight = 2500L;
+        AtomicLong inFlightWeight = new AtomicLong(0);
+        AtomicLong peakWeight = new AtomicLong(0);
+        BatchOperator<List<Integer>> parallelOperator = new ListBatchOperator<Integer>(weightList) {
+            @Override
+            public int operate(List<Integer> data) {
+                long weight = data.stream().mapToLong(Integer::longValue).sum();
+                peakWeight.accumulateAndGet(inFlightWeight.addAndGet(weight), Math::max);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                inFlightWeight.addAndGet(-weight);
+                return data.size();
+            }
+        };
+        res = BatchUtils.batchParallelOperate(parallelOperator, Integer::longValue, maxBatchWeight, maxBatchSize,
+                maxInFlightWeight, executorService, false);
+        assertEquals(weightList.size(), res);
+        assertTrue(peakWeight.get() <= maxInFlightWeight, "Peak in-flight weight " + peakWeight.get());
+    }
+
+    /**
+     * 带检查点的批量操作单元测试，中断后重新执行只操作未完成的批次
+     *
+     * @param tempDir 检查点文件目录
+     * @throws InterruptedException 线程被打断时的异常
+     */
+    @Test
+    void batchCheckpointOperate(@TempDir Path tempDir) throws InterruptedException {
+        List<Integer> numList = new ArrayList<>(1000);
+        for (int i = 0; i < 1000; i++) {
+            numList.add(i);
+        }
+        Set<Integer> operatedSet = ConcurrentHashMap.newKeySet();
+        AtomicInteger sequence = new AtomicInteger(0);
+        BatchOperator<List<Integer>> failingOperator = new ListBatchOperator<Integer>(numList) {
+            @Override
+            public int operate(List<Integer> data) {
+                if (sequence.getAndIncrement() == 3) {
+                    throw new UltraRuntimeException("Job killed");
+                }
+                operatedSet.addAll(data);
+                return data.size();
+            }
+        };
+        try (LocalFileCheckpointStore store = new LocalFileCheckpointStore(tempDir)) {
+            assertThrows(UltraRuntimeException.class,
+                    () -> BatchUtils.batchOperate(failingOperator, batchSize, store, "backfill"));
+            assertEquals(3 * batchSize, operatedSet.size());
+        }
+        AtomicInteger operatedCnt = new AtomicInteger(0);
+        BatchOperator<List<Integer>> operator = new ListBatchOperator<Integer>(numList) {
+            @Override
+            public int operate(List<Integer> data) {
+                data.forEach(num -> assertTrue(operatedSet.add(num), "Operated twice: " + num));
+                operatedCnt.addAndGet(data.size());
+                return data.size();
+            }
+        };
+        try (LocalFileCheckpointStore store = new LocalFileCheckpointStore(tempDir)) {
+            long res = BatchUtils.batchParallelOperate(operator, batchSize, executorService, false, store, "backfill");
+            assertEquals(numList.size() - 3 * batchSize, res);
+            assertEquals(numList.size(), operatedSet.size());
+            assertEquals(0L, BatchUtils.batchParallelOperate(operator, batchSize, executorService, false,
+                    store, "backfill"));
+            store.clear("backfill");
+            assertFalse(store.isCompleted("backfill", 0, batchSize));
+        }
+    }
+
+    /**
+     * 检查点文件中有损坏的行时，从损坏的行开始截掉，之前的记录仍然有效
+     *
+     * @param tempDir 检查点文件目录
+     * @throws IOException 文件读写异常
+     */
+    @Test
+    void checkpointWithCorruptedLine(@TempDir Path tempDir) throws IOException {
+        Files.write(tempDir.resolve("corrupted.ckpt"),
+                "0,100\n100,100\n\0\0\0\0\n200,100\n".getBytes(StandardCharsets.US_ASCII));
+        try (LocalFileCheckpointStore store = new LocalFileCheckpointStore(tempDir)) {
+            assertTrue(store.isCompleted("corrupted", 0, 100));
+            assertTrue(store.isCompleted("corrupted", 100, 100));
+            assertFalse(store.isCompleted("corrupted", 200, 100));
+            store.markCompleted("corrupted", 300, 100);
+        }
+        try (LocalFileCheckpointStore store = new LocalFileCheckpointStore(tempDir)) {
+            assertTrue(store.isCompleted("corrupted", 100, 100));
+            assertTrue(store.isCompleted("corrupted", 300, 100));
+        }
+    }
+
+    /**
+     * 使用租户舱壁的多线程批量操作单元测试，租户的并发数不能超过舱壁上限
+     *
+     * @throws InterruptedException 线程被打断时的异常
+     */
+    @Test
+    void batchParallelOperateWithBulkhead() throws InterruptedException {
+        List<Integer> numList = RandomUtils.generateList(1000, RandomUtil::randomNumber);
+        AtomicInteger running = new AtomicInteger(0);
+        AtomicInteger peakRunning = new AtomicInteger(0);
+        BatchOperator<List<Integer>> operator = new ListBatchOperator<Integer>(numList) {
+            @Override
+            public int operate(List<Integer> data) {
+                peakRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return data.size();
+            }
+        };
+        try (BatchExecutorRegistry registry = new BatchExecutorRegistry()) {
+            registry.register("tenantPool", new BatchExecutorRegistry.PoolConfig(8, 16,
+                    BatchExecutorRegistry.RejectPolicy.BLOCK));
+            Bulkhead bulkhead = registry.getBulkhead("tenantPool", "tenantA", 3);
+            long res = BatchUtils.batchParallelOperate(operator, 10, bulkhead, false);
+            assertEquals(numList.size(), res);
+            assertTrue(peakRunning.get() <= 3, "Peak running " + peakRunning.get());
+            PoolStats stats = registry.getStats("tenantPool");
+            LOGGER.info("Pool stats: {}", stats);
+            assertEquals(0, stats.getQueueSize());
+        }
+        assertEquals(numList.size(), BatchUtils.batchParallelOperate(operator, 10));
+    }
+
+    /**
+     * 线程池拒绝部分批次时，仍然等待已提交的批次完成后再返回或抛出异常
+     *
+     * @throws InterruptedException 线程被打断时的异常
+     */
+    @Test
+    void batchParallelOperateWithRejection() throws InterruptedException {
+        List<Integer> numList = RandomUtils.generateList(100, RandomUtil::randomNumber);
+        AtomicInteger running = new AtomicInteger(0);
+        AtomicInteger operatedRows = new AtomicInteger(0);
+        BatchOperator<List<Integer>> operator = new ListBatchOperator<Integer>(numList) {
+            @Override
+            public int operate(List<Integer> data) {
+                running.incrementAndGet();
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                operatedRows.addAndGet(data.size());
+                running.decrementAndGet();
+                return data.size();
+            }
+        };
+        try (BatchExecutorRegistry registry = new BatchExecutorRegistry()) {
+            registry.register("abortPool", new BatchExecutorRegistry.PoolConfig(1, 1,
+                    BatchExecutorRegistry.RejectPolicy.ABORT));
+            ExecutorService abortExecutor = registry.getExecutor("abortPool");
+            assertThrows(UltraRuntimeException.class,
+                    () -> BatchUtils.batchParallelOperate(operator, 10, abortExecutor, false));
+            assertEquals(0, running.get(), "Submitted batches should finish before the call returns");
+            operatedRows.set(0);
+            long res = BatchUtils.batchParallelOperate(operator, 10, abortExecutor, true);
+            assertEquals(0, running.get(), "Submitted batches should finish before the call returns");
+            assertTrue(res > 0 && res < numList.size(), "Success count " + res);
+            assertEquals(operatedRows.get(), res);
+        }
+    }
+
+    /**
+     * 虚拟线程批量操作单元测试，同时执行的批次数不能超过并发上限
+     *
+     * @throws InterruptedException 线程被打断时的异常
+     */
+    @Test
+    void batchVirtualOperate() throws InterruptedException {
+        List<Integer> numList = RandomUtils.generateList(2000, RandomUtil::randomNumber);
+        // 上限需要明显小于不支持虚拟线程时退化使用的IO线程池的线程数，否则限制的是线程数而不是并发上限
+        int maxConcurrency = 8;
+        AtomicInteger running = new AtomicInteger(0);
+        AtomicInteger peakRunning = new AtomicInteger(0);
+        BatchOperator<List<Integer>> operator = new ListBatchOperator<Integer>(numList) {
+            @Override
+            public int operate(List<Integer> data) {
+                peakRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return data.size();
+            }
+        };
+        long res = BatchUtils.batchVirtualOperate(operator, 5, maxConcurrency, false);
+        LOGGER.info("Virtual threads supported: {}, peak running: {}", VirtualThreads.isSupported(), peakRunning);
+        assertEquals(numList.size(), res);
+        assertEquals(maxConcurrency, peakRunning.get(), "Peak running should reach but not exceed the limit");
+    }
+
+    /**
+     * 批量操作监控统计单元测试
+     *
+     * @throws InterruptedException 线程被打断时的异常
+     */
+    @Test
+    void batchMetrics() throws InterruptedException {
+        List<Integer> numList = new ArrayList<>(1050);
+        for (int i = 0; i < 1050; i++) {
+            numList.add(i);
+        }
+        BatchOperator<List<Integer>> operator = new ListBatchOperator<Integer>(numList) {
+            @Override
+            public int operate(List<Integer> data) {
+                if (data.get(0) == 0) {
+                    throw new UltraRuntimeException("First batch failed");
+                }
+                return data.size();
+            }
+
+            @Override
+            public String jobName() {
+                return "metricsTest";
+            }
+        };
+        List<BatchJobStats> statsList = new CopyOnWriteArrayList<>();
+        LoggingBatchMetrics loggingMetrics = new LoggingBatchMetrics();
+        BatchUtils.setBatchMetrics((jobName, batchCount) -> {
+            BatchJobStats stats = new BatchJobStats(jobName, batchCount);
+            statsList.add(stats);
+            return stats;
+        });
+        try {
+            long res = BatchUtils.batchParallelOperate(operator, batchSize, executorService, true);
+            assertEquals(numList.size() - batchSize, res);
+            BatchUtils.setBatchMetrics(loggingMetrics);
+            BatchUtils.batchParallelOperate(operator, batchSize, executorService, true);
+        } finally {
+            BatchUtils.setBatchMetrics(null);
+        }
+        assertEquals(1, statsList.size());
+        BatchJobStats stats = statsList.get(0);
+        assertEquals("metricsTest", stats.getJobName());
+        assertEquals(11, stats.getBatchCount());
+        assertEquals(numList.size(), stats.getRows());
+        assertEquals(numList.size() - batchSize, stats.getSuccessCnt());
+        assertEquals(1, stats.getFailedBatches());
+        assertEquals(11, stats.getOperateHistogram().getCount());
+        assertTrue(stats.getRowsPerSecond() > 0);
+    }
+
+    /**
+     * 监控统计的批次数单元测试，分片任务按实际批次上报，检查点任务只统计本次执行的批次，提交失败时任务也会结束
+     *
+     * @param tempDir 检查点文件目录
+     * @throws InterruptedException 线程被打断时的异常
+     */
+    @Test
+    void batchMetricsBatchCount(@TempDir Path tempDir) throws InterruptedException {
+        List<Integer> numList = new ArrayList<>(1050);
+        for (int i = 0; i < 1050; i++) {
+            numList.add(i);
+        }
+        BatchOperator<List<Integer>> operator = new ListBatchOperator<Integer>(numList) {
+            @Override
+            public int operate(List<Integer> data) {
+                return data.size();
+            }
+        };
+        List<BatchJobStats> statsList = new CopyOnWriteArrayList<>();
+        BatchUtils.setBatchMetrics((jobName, batchCount) -> {
+            BatchJobStats stats = new BatchJobStats(jobName, batchCount);
+            statsList.add(stats);
+            return stats;
+        });
+        ExecutorService shutdownExecutor = Executors.newSingleThreadExecutor(threadFactory);
+        shutdownExecutor.shutdown();
+        try (LocalFileCheckpointStore store = new LocalFileCheckpointStore(tempDir)) {
+            // 每个分片262或263条数据，各分3批
+            BatchUtils.batchShardedOperate(operator, num -> num % 4, 4, batchSize, executorService, false);
+            for (int i = 0; i < 3; i++) {
+                store.markCompleted("metrics", i * batchSize, batchSize);
+            }
+            BatchUtils.batchOperate(operator, batchSize, store, "metrics");
+            assertThrows(UltraRuntimeException.class,
+                    () -> BatchUtils.batchParallelOperate(operator, batchSize, shutdownExecutor, false));
+        } finally {
+            BatchUtils.setBatchMetrics(null);
+        }
+        assertEquals(3, statsList.size());
+        BatchJobStats shardedStats = statsList.get(0);
+        assertEquals(12, shardedStats.getBatchCount());
+        assertEquals(12, shardedStats.getOperateHistogram().getCount());
+        assertEquals(numList.size(), shardedStats.getRows());
+        BatchJobStats checkpointStats = statsList.get(1);
+        assertEquals(8, checkpointStats.getBatchCount());
+        assertEquals(8, checkpointStats.getOperateHistogram().getCount());
+        assertTrue(statsList.get(2).isFinished());
+    }
+}
@@ -0,0 +1,281 @@
+package com.ultrakid.ultratools.cache;
+
+
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * LRU缓存的并发压力测试
+ * 通过系统属性ultratools.stress.factor放大运行量，例如-Dultratools.stress.factor=10
+ *
+ * @author ultrakid
+ * @version 1.0
+ * @date 2022/03/15 14:02
+ */
+class ConcurrentLRUCacheStressTest {
+    private static final Log LOGGER = LogFactory.get(ConcurrentLRUCacheStressTest.class);
+
+    private static final int STRESS_FACTOR = Integer.getInteger("ultratools.stress.factor", 1);
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(60L * STRESS_FACTOR);
+
+    /**
+     * 每个key的value编码为key * VALUE_BASE + 序号，用于检查value没有串到别的key上
+     */
+    private static final int VALUE_BASE = 1_000_000;
+
+    /**
+     * putIfAbsent之后其他线程的写操作不能被阻塞
+     */
+    @Test
+    void putIfAbsentReleasesLock() {
+        ConcurrentLRUCache<Integer, Integer> cache = new ConcurrentLRUCache<>(16, 8);
+        assertNull(cache.putIfAbsent(1, 1));
+        assertEquals(1, cache.putIfAbsent(1, 2));
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            Thread writer = new Thread(() -> cache.put(2, 2));
+            writer.start();
+            writer.join();
+        });
+        assertEquals(2, cache.get(2));
+    }
+
+    /**
+     * 随机并发读写混合操作，检查大小不超过上限、结构没有被破坏、value没有丢失或错乱
+     */
+    @Test
+    void randomOperationsKeepInvariants() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            int threadNum = Math.max(4, Runtime.getRuntime().availableProcessors());
+            int maxSize = 64;
+            int keySpace = maxSize * 2;
+            int opsPerThread = 200_000 * STRESS_FACTOR;
+            ConcurrentLRUCache<Integer, Integer> cache = new ConcurrentLRUCache<>(maxSize, maxSize);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicInteger maxObservedSize = new AtomicInteger(0);
+            CyclicBarrier barrier = new CyclicBarrier(threadNum + 1);
+            List<Thread> threadList = new ArrayList<>(threadNum + 1);
+            for (int t = 0; t < threadNum; t++) {
+                long seed = t;
+                threadList.add(new Thread(() -> {
+                    SplittableRandom random = new SplittableRandom(seed);
+                    try {
+                        barrier.await();
+                        for (int i = 0; i < opsPerThread && failure.get() == null; i++) {
+                            randomOperate(cache, random, keySpace, i);
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }, "stress-worker-" + t));
+            }
+            threadList.add(new Thread(() -> {
+                try {
+                    barrier.await();
+                    while (running.get()) {
+                        maxObservedSize.accumulateAndGet(cache.size(), Math::max);
+                    }
+                } catch (InterruptedException | BrokenBarrierException e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "stress-monitor"));
+            threadList.forEach(Thread::start);
+            for (int t = 0; t < threadNum; t++) {
+                threadList.get(t).join();
+            }
+            running.set(false);
+            threadList.get(threadNum).join();
+            if (failure.get() != null) {
+                throw new AssertionError("Exception in stress worker", failure.get());
+            }
+            LOGGER.info("Stress finished, threads: {}, final size: {}, max observed size: {}",
+                    threadNum, cache.size(), maxObservedSize.get());
+            assertTrue(maxObservedSize.get() <= maxSize, "Max observed size " + maxObservedSize.get());
+            assertTrue(cache.size() <= maxSize);
+            Map<Integer, Integer> snapshot = new HashMap<>();
+            cache.forEach(snapshot::put);
+            assertEquals(cache.size(), snapshot.size());
+            snapshot.forEach((key, value) -> {
+                assertEquals(key.intValue(), value / VALUE_BASE, "Value " + value + " under key " + key);
+                assertEquals(value, cache.get(key));
+            });
+            assertEquals(cache.size(), cache.keySet().size());
+        });
+    }
+
+    /**
+     * get会调整访问顺序，多线程同时get不能破坏内部链表，所有数据都要能遍历到
+     */
+    @Test
+    void concurrentGetsKeepAccessOrder() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            int threadNum = Math.max(4, Runtime.getRuntime().availableProcessors());
+            int maxSize = 256;
+            int opsPerThread = 500_000 * STRESS_FACTOR;
+            ConcurrentLRUCache<Integer, Integer> cache = new ConcurrentLRUCache<>(maxSize, maxSize);
+            for (int i = 0; i < maxSize; i++) {
+                cache.put(i, i * VALUE_BASE);
+            }
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            CyclicBarrier barrier = new CyclicBarrier(threadNum);
+            List<Thread> threadList = new ArrayList<>(threadNum);
+            for (int t = 0; t < threadNum; t++) {
+                long seed = t;
+                threadList.add(new Thread(() -> {
+                    SplittableRandom random = new SplittableRandom(seed);
+                    try {
+                        barrier.await();
+                        for (int i = 0; i < opsPerThread && failure.get() == null; i++) {
+                            int key = random.nextInt(maxSize);
+                            Integer value = cache.get(key);
+                            if (value == null || value != key * VALUE_BASE) {
+                                throw new AssertionError("Value " + value + " returned for key " + key);
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }, "stress-reader-" + t));
+            }
+            threadList.forEach(Thread::start);
+            for (Thread thread : threadList) {
+                thread.join();
+            }
+            if (failure.get() != null) {
+                throw new AssertionError("Exception in stress reader", failure.get());
+            }
+            Map<Integer, Integer> snapshot = new HashMap<>();
+            cache.forEach(snapshot::put);
+            assertEquals(maxSize, cache.size());
+            assertEquals(maxSize, snapshot.size(), "Entries lost from access order");
+        });
+    }
+
+    /**
+     * 无淘汰时多线程并发读写的历史需要线性一致
+     */
+    @Test
+    void historiesAreLinearizable() {
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            int rounds = 2_000 * STRESS_FACTOR;
+            int threadNum = 3;
+            int opsPerThread = 8;
+            int keySpace = 2;
+            for (int round = 0; round < rounds; round++) {
+                ConcurrentLRUCache<Integer, Integer> cache = new ConcurrentLRUCache<>(16, 16);
+                List<HistoryChecker.Op> history = Collections.synchronizedList(new ArrayList<>());
+                CyclicBarrier barrier = new CyclicBarrier(threadNum);
+                AtomicReference<Throwable> failure = new AtomicReference<>();
+                List<Thread> threadList = new ArrayList<>(threadNum);
+                for (int t = 0; t < threadNum; t++) {
+                    long seed = (long) round * threadNum + t;
+                    int threadIndex = t;
+                    threadList.add(new Thread(() -> {
+                        SplittableRandom random = new SplittableRandom(seed);
+                        try {
+                            barrier.await();
+                            for (int i = 0; i < opsPerThread; i++) {
+                                history.add(recordOperate(cache, random, keySpace, threadIndex * opsPerThread + i));
+                            }
+                        } catch (Throwable e) {
+                            failure.compareAndSet(null, e);
+                        }
+                    }));
+                }
+                threadList.forEach(Thread::start);
+                for (Thread thread : threadList) {
+                    thread.join();
+                }
+                if (failure.get() != null) {
+                    throw new AssertionError("Exception in history worker", failure.get());
+                }
+                List<HistoryChecker.Op> violation = HistoryChecker.findViolation(history);
+                assertNull(violation, () -> "Non-linearizable history: " + violation);
+            }
+        });
+    }
+
+    private static void randomOperate(ConcurrentLRUCache<Integer, Integer> cache, SplittableRandom random,
+                                      int keySpace, int seq) {
+        Integer key = random.nextInt(keySpace);
+        Integer value = key * VALUE_BASE + seq % VALUE_BASE;
+        Integer res;
+        switch (random.nextInt(10)) {
+            case 0:
+                res = cache.put(key, value);
+                break;
+            case 1:
+                res = cache.putIfAbsent(key, value);
+                break;
+            case 2:
+                res = cache.remove(key);
+                break;
+            case 3:
+                res = cache.computeIfAbsent(key, k -> value);
+                break;
+            case 4:
+                res = cache.merge(key, value, (oldValue, newValue) -> newValue);
+                break;
+            case 5:
+                res = cache.replace(key, value);
+                break;
+            case 6:
+                res = cache.getOrDefault(key, null);
+                break;
+            case 7:
+                res = cache.containsKey(key) ? key * VALUE_BASE : null;
+                break;
+            default:
+                res = cache.get(key);
+        }
+        if (res != null && res / VALUE_BASE != key) {
+            throw new AssertionError("Value " + res + " returned for key " + key);
+        }
+    }
+
+    private static HistoryChecker.Op recordOperate(ConcurrentLRUCache<Integer, Integer> cache,
+                                                   SplittableRandom random, int keySpace, int uniqueValue) {
+        int key = random.nextInt(keySpace);
+        HistoryChecker.OpType type = HistoryChecker.OpType.values()[random.nextInt(4)];
+        Integer value = type == HistoryChecker.OpType.PUT || type == HistoryChecker.OpType.PUT_IF_ABSENT
+                ? uniqueValue : null;
+        long invokeNanos = System.nanoTime();
+        Integer result;
+        switch (type) {
+            case PUT:
+                result = cache.put(key, value);
+                break;
+            case PUT_IF_ABSENT:
+                result = cache.putIfAbsent(key, value);
+                break;
+            case REMOVE:
+                result = cache.remove(key);
+                break;
+            default:
+                result = cache.get(key);
+        }
+        long responseNanos = System.nanoTime();
+        return new HistoryChecker.Op(type, key, value, result, invokeNanos, responseNanos);
+    }
+}
@@ -0,0 +1,125 @@
+package com.ultrakid.ultratools.cache;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 并发操作历史的线性一致性检查器
+ * 每个key视为一个独立的寄存器，线性一致性可以按key分别检查，
+ * 使用Wing&Gong算法搜索是否存在与实时顺序一致的串行执行顺序，对(已线性化的操作集合, 寄存器值)做剪枝
+ *
+ * @author ultrakid
+ * @version 1.0
+ * @date 2022/03/15 10:36
+ */
+class HistoryChecker {
+
+    /**
+     * 操作类型
+     */
+    enum OpType {
+        GET, PUT, PUT_IF_ABSENT, REMOVE
+    }
+
+    /**
+     * 一次已完成的操作
+     */
+    static class Op {
+        final OpType type;
+        final int key;
+        final Integer value;
+        final Integer result;
+        final long invokeNanos;
+        final long responseNanos;
+
+        Op(OpType type, int key, Integer value, Integer result, long invokeNanos, long responseNanos) {
+            this.type = type;
+            this.key = key;
+            this.value = value;
+            this.result = result;
+            this.invokeNanos = invokeNanos;
+            this.responseNanos = responseNanos;
+        }
+
+        @Override
+        public String toString() {
+            return type + "(" + key + (value == null ? "" : ", " + value) + ") = " + result +
+                    " [" + invokeNanos + ", " + responseNanos + "]";
+        }
+    }
+
+    private HistoryChecker() {
+
+    }
+
+    /**
+     * 检查历史是否线性一致
+     *
+     * @param history 所有线程的操作历史，寄存器初始值均为null
+     * @return 不一致的key对应的操作列表，一致时返回null
+     */
+    static List<Op> findViolation(List<Op> history) {
+        Map<Integer, List<Op>> keyOps = new TreeMap<>();
+        for (Op op : history) {
+            keyOps.computeIfAbsent(op.key, key -> new ArrayList<>()).add(op);
+        }
+        for (List<Op> ops : keyOps.values()) {
+            if (ops.size() > Long.SIZE) {
+                throw new IllegalArgumentException("Too many operations on one key: " + ops.size());
+            }
+            if (!search(ops, 0L, null, new HashSet<>())) {
+                return ops;
+            }
+        }
+        return null;
+    }
+
+    private static boolean search(List<Op> ops, long doneMask, Integer state, Set<String> failedStates) {
+        int size = ops.size();
+        if (Long.bitCount(doneMask) == size) {
+            return true;
+        }
+        if (!failedStates.add(doneMask + ":" + state)) {
+            return false;
+        }
+        // 只有在所有剩余操作的最早响应时间之前开始的操作才能排在下一个
+        long minResponse = Long.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            if ((doneMask & (1L << i)) == 0) {
+                minResponse = Math.min(minResponse, ops.get(i).responseNanos);
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            Op op = ops.get(i);
+            if ((doneMask & (1L << i)) != 0 || op.invokeNanos > minResponse) {
+                continue;
+            }
+            if (!Objects.equals(op.result, state)) {
+                continue;
+            }
+            Integer nextState;
+            switch (op.type) {
+                case PUT:
+                    nextState = op.value;
+                    break;
+                case PUT_IF_ABSENT:
+                    nextState = state == null ? op.value : state;
+                    break;
+                case REMOVE:
+                    nextState = null;
+                    break;
+                default:
+                    nextState = state;
+            }
+            if (search(ops, doneMask | (1L << i), nextState, failedStates)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
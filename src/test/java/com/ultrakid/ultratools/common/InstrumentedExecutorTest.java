@@ -0,0 +1,100 @@
+package com.ultrakid.ultratools.common;
+
+
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * 带统计功能的线程池单元测试
+ *
+ * @author ultrakid
+ * @version 1.0
+ * @date 2022/03/02 10:14
+ */
+class InstrumentedExecutorTest {
+    private static final Log LOGGER = LogFactory.get(InstrumentedExecutorTest.class);
+
+    /**
+     * 任务耗时、失败数、CPU时间和未捕获异常处理的单元测试
+     *
+     * @throws InterruptedException 线程被打断时的异常
+     */
+    @Test
+    void instrumentedExecutor() throws InterruptedException {
+        AtomicReference<Throwable> uncaught = new AtomicReference<>();
+        CountDownLatch uncaughtLatch = new CountDownLatch(1);
+        InstrumentedThreadFactory threadFactory = new InstrumentedThreadFactory("instrumentedTest", true,
+                Thread.MAX_PRIORITY, (t, e) -> {
+            uncaught.set(e);
+            uncaughtLatch.countDown();
+        });
+        InstrumentedExecutor executor = new InstrumentedExecutor("instrumentedTest", 2, 2, 0L,
+                TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), threadFactory,
+                new ThreadPoolExecutor.AbortPolicy());
+        int taskNum = 20;
+        CountDownLatch latch = new CountDownLatch(taskNum);
+        // 线程池内的断言失败不会传播到测试线程，记录下来在测试线程中检查
+        AtomicReference<String> taskFailure = new AtomicReference<>();
+        for (int i = 0; i < taskNum; i++) {
+            executor.execute(() -> {
+                try {
+                    Thread current = Thread.currentThread();
+                    if (!current.isDaemon() || current.getPriority() != Thread.MAX_PRIORITY) {
+                        taskFailure.compareAndSet(null, "Unexpected thread " + current.getName() + ", daemon="
+                                + current.isDaemon() + ", priority=" + current.getPriority());
+                    }
+                    long sum = 0L;
+                    for (int j = 0; j < 2_000_000; j++) {
+                        sum += j ^ sum;
+                    }
+                    if (sum == 42L) {
+                        LOGGER.info("Unlikely sum");
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        assertTrue(latch.await(30, TimeUnit.SECONDS), "Tasks did not finish in time");
+        assertNull(taskFailure.get(), taskFailure.get());
+        executor.execute(() -> {
+            throw new IllegalStateException("Expected failure");
+        });
+        assertTrue(uncaughtLatch.await(5, TimeUnit.SECONDS));
+        assertEquals("Expected failure", uncaught.get().getMessage());
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        LOGGER.info("Executor: {}", executor);
+        assertEquals(taskNum + 1, executor.getRunHistogram().getCount());
+        assertEquals(taskNum + 1, executor.getQueueWaitHistogram().getCount());
+        assertEquals(1, executor.getFailedCount());
+        assertEquals(taskNum + 1, executor.getStats().getCompletedTaskCount());
+        // awaitTermination返回时工作线程可能还没有执行完线程工厂包装的finally，等待线程真正退出
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (threadFactory.getLiveThreadCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, threadFactory.getLiveThreadCount());
+        assertTrue(threadFactory.getCreatedThreadCount() >= 2);
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean.isThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled()) {
+            assertTrue(executor.getCpuTimeNanos() > 0L, "CPU time of busy tasks should be tracked");
+        } else {
+            assertEquals(0L, executor.getCpuTimeNanos());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.ultrakid.ultratools.data;
+
+
+import com.ultrakid.ultratools.batch.BatchUtils;
+import com.ultrakid.ultratools.batch.operator.BatchOperator;
+import com.ultrakid.ultratools.batch.operator.ListBatchOperator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+/**
+ * 数据集文件读写单元测试
+ *
+ * @author ultrakid
+ * @version 1.0
+ * @date 2022/02/22 09:48
+ */
+class MappedDatasetTest {
+
+    private static final RecordCodec<long[]> PAIR_CODEC = new RecordCodec<long[]>() {
+        @Override
+        public int recordSize() {
+            return 16;
+        }
+
+        @Override
+        public void encode(long[] record, ByteBuffer buffer, int offset) {
+            buffer.putLong(offset, record[0]);
+            buffer.putLong(offset + 8, record[1]);
+        }
+
+        @Override
+        public long[] decode(ByteBuffer buffer, int offset) {
+            return new long[]{buffer.getLong(offset), buffer.getLong(offset + 8)};
+        }
+    };
+
+    /**
+     * 写入后读取的数据需要与相同种子生成的列表一致，并可以作为批量操作的数据源
+     *
+     * @param tempDir 临时目录
+     * @throws Exception 读写或批量操作异常
+     */
+    @Test
+    void writeAndRead(@TempDir Path tempDir) throws Exception {
+        int count = RandomUtils.CHUNK_SIZE * 3 + 17;
+        RandomUtils.SplittableGenerator<long[]> generator =
+                random -> new long[]{random.nextLong(), random.nextInt(1000)};
+        Path file = tempDir.resolve("pairs.ds");
+        MappedDatasetWriter.write(file, count, 99L, generator, PAIR_CODEC);
+        List<long[]> expectedList = RandomUtils.generateList(count, 99L, generator);
+        try (MappedDatasetReader<long[]> reader = MappedDatasetReader.open(file, PAIR_CODEC)) {
+            assertEquals(count, reader.size());
+            assertEquals(99L, reader.getSeed());
+            long expectedSum = 0L;
+            for (int i = 0; i < count; i++) {
+                long[] record = reader.get(i);
+                assertEquals(expectedList.get(i)[0], record[0]);
+                assertEquals(expectedList.get(i)[1], record[1]);
+                expectedSum += record[1];
+            }
+            AtomicLong sum = new AtomicLong(0);
+            BatchOperator<List<long[]>> operator = new ListBatchOperator<long[]>(reader.asList()) {
+                @Override
+                public int operate(List<long[]> data) {
+                    data.forEach(record -> sum.addAndGet(record[1]));
+                    return data.size();
+                }
+            };
+            assertEquals(count, BatchUtils.batchParallelOperate(operator, 1000));
+            assertEquals(expectedSum, sum.get());
+        }
+    }
+}
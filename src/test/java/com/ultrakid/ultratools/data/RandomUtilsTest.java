@@ -0,0 +1,141 @@
+package com.ultrakid.ultratools.data;
+
+
+import cn.hutool.log.Log;
+import cn.hutool.log.LogFactory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+/**
+ * 随机工具类单元测试
+ *
+ * @author ultrakid
+ * @version 1.0
+ * @date 2022/02/08 15:31
+ */
+class RandomUtilsTest {
+    private static final Log LOGGER = LogFactory.get(RandomUtilsTest.class);
+
+    /**
+     * 并行生成单元测试，同一个种子的结果需要相同，与并行的线程数无关
+     *
+     * @throws Exception 并行任务执行异常
+     */
+    @Test
+    void parallelGenerate() throws Exception {
+        int num = RandomUtils.CHUNK_SIZE * 5 + 123;
+        ForkJoinPool singlePool = new ForkJoinPool(1);
+        ForkJoinPool multiPool = new ForkJoinPool(8);
+        List<String> strList;
+        int[] ints;
+        try {
+            strList = singlePool.submit(
+                    () -> RandomUtils.generateList(num, 42L, random -> "id-" + random.nextInt(1000))).get();
+            assertEquals(strList, multiPool.submit(
+                    () -> RandomUtils.generateList(num, 42L, random -> "id-" + random.nextInt(1000))).get());
+            ints = singlePool.submit(() -> RandomUtils.randomInts(num, 7L, -10, 10)).get();
+            assertArrayEquals(ints, multiPool.submit(() -> RandomUtils.randomInts(num, 7L, -10, 10)).get());
+        } finally {
+            singlePool.shutdown();
+            multiPool.shutdown();
+        }
+        assertEquals(num, strList.size());
+        // 空列表与非空列表一样为固定长度
+        List<String> emptyList = RandomUtils.generateList(0, 42L, random -> "id");
+        assertTrue(emptyList.isEmpty());
+        assertThrows(UnsupportedOperationException.class, () -> emptyList.add("id"));
+        assertThrows(UnsupportedOperationException.class, () -> strList.add("id"));
+        assertEquals(strList, RandomUtils.generateList(num, 42L, random -> "id-" + random.nextInt(1000)));
+        assertArrayEquals(ints, RandomUtils.randomInts(num, 7L, -10, 10));
+        assertFalse(Arrays.equals(ints, RandomUtils.randomInts(num, 8L, -10, 10)));
+        for (int value : ints) {
+            assertTrue(value >= -10 && value < 10);
+        }
+        long[] longs = RandomUtils.randomLongs(num, 7L, 0L, Long.MAX_VALUE);
+        assertArrayEquals(longs, RandomUtils.randomLongs(num, 7L, 0L, Long.MAX_VALUE));
+        double[] doubles = RandomUtils.randomDoubles(num, 7L, 1D, 2D);
+        for (double value : doubles) {
+            assertTrue(value >= 1D && value < 2D);
+        }
+        LOGGER.info("First generated: {}, {}, {}, {}", strList.get(0), ints[0], longs[0], doubles[0]);
+    }
+
+    /**
+     * 按权重挑选单元测试，挑选频率需要接近权重比例
+     */
+    @Test
+    void weightedPick() {
+        WeightedPicker<String> picker = new WeightedPicker<>(Arrays.asList("a", "b", "c", "d"),
+                new double[]{1D, 2D, 0D, 5D});
+        int times = 400_000;
+        int[] counts = new int[picker.size()];
+        SplittableRandom random = new SplittableRandom(1L);
+        for (int i = 0; i < times; i++) {
+            counts[picker.pickIndex(random)]++;
+        }
+        LOGGER.info("Weighted pick counts: {}", Arrays.toString(counts));
+        assertEquals(0, counts[2]);
+        assertEquals(1D / 8, (double) counts[0] / times, 0.005);
+        assertEquals(2D / 8, (double) counts[1] / times, 0.005);
+        assertEquals(5D / 8, (double) counts[3] / times, 0.005);
+
+        WeightedPicker<Integer> zipfPicker = WeightedPicker.zipf(100, 1D);
+        int[] zipfCounts = new int[zipfPicker.size()];
+        for (int i = 0; i < times; i++) {
+            zipfCounts[zipfPicker.pick()]++;
+        }
+        assertTrue(zipfCounts[0] > zipfCounts[1] && zipfCounts[1] > zipfCounts[9] && zipfCounts[9] > zipfCounts[99]);
+    }
+
+    /**
+     * 抽样单元测试，样本不重复且每个数据被抽中的频率接近k/n
+     */
+    @Test
+    void sample() {
+        List<Integer> numList = new ArrayList<>(100);
+        for (int i = 0; i < 100; i++) {
+            numList.add(i);
+        }
+        int k = 10;
+        int rounds = 20_000;
+        int[] sampleCounts = new int[numList.size()];
+        int[] reservoirCounts = new int[numList.size()];
+        int[] parallelCounts = new int[numList.size()];
+        for (int round = 0; round < rounds; round++) {
+            List<Integer> sampleList = RandomUtils.sample(numList, k);
+            assertEquals(k, new HashSet<>(sampleList).size());
+            sampleList.forEach(num -> sampleCounts[num]++);
+            List<Integer> reservoirList = RandomUtils.reservoirSample(numList.stream(), k);
+            assertEquals(k, new HashSet<>(reservoirList).size());
+            reservoirList.forEach(num -> reservoirCounts[num]++);
+            List<Integer> parallelList = RandomUtils.parallelReservoirSample(numList.stream(), k);
+            assertEquals(k, new HashSet<>(parallelList).size());
+            parallelList.forEach(num -> parallelCounts[num]++);
+        }
+        double expected = (double) rounds * k / numList.size();
+        for (int i = 0; i < numList.size(); i++) {
+            assertEquals(expected, sampleCounts[i], expected * 0.15, "sample " + i);
+            assertEquals(expected, reservoirCounts[i], expected * 0.15, "reservoirSample " + i);
+            assertEquals(expected, parallelCounts[i], expected * 0.15, "parallelReservoirSample " + i);
+        }
+        // 不支持随机访问的列表，k超过列表大小时返回全部数据的随机排列
+        List<Integer> allList = RandomUtils.sample(new LinkedList<>(numList), Integer.MAX_VALUE);
+        assertEquals(numList.size(), new HashSet<>(allList).size());
+        assertNotEquals(numList, allList);
+    }
+}